@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bigtwo.jmh.CardBenchmark;
+
+/**
+ * The CardWorkload class is used by CardBenchmark to compare and sort the cards of random 13-card hands.
+ * @author Zhou Jingran
+ *
+ */
+public class CardWorkload implements CardBenchmark.Operations {
+    private static final int NUM_OF_HANDS = 1024; // the number of random hands prepared
+
+    // the Big Two order as BigTwoCard.compareTo used to compute it, kept as a baseline
+    private static final Comparator<Card> LEGACY_ORDER = new Comparator<Card>() {
+        public int compare(Card a, Card b) {
+            Card tempA = new Card(a.getSuit(), (a.getRank() + 11) % 13);
+            Card tempB = new Card(b.getSuit(), (b.getRank() + 11) % 13);
+            return tempA.compareTo(tempB);
+        }
+    };
+
+    private final Card[][] hands = new Card[NUM_OF_HANDS][]; // random 13-card hands
+    private final Card[] work = new Card[13]; // a scratch array for sorting
+    private int next = 0; // the index of the next hand to use
+
+    /**
+     * A constructor for dealing the random hands.
+     */
+    public CardWorkload() {
+        SplittableRandom random = new SplittableRandom(2396);
+        Deck deck = new BigTwoDeck();
+        for (int i = 0; i < NUM_OF_HANDS; i++) {
+            deck.shuffle(random);
+            hands[i] = new Card[13];
+            for (int j = 0; j < 13; j++) {
+                hands[i][j] = deck.getCard(j);
+            }
+        }
+    }
+
+    /**
+     * A method for comparing neighbouring cards of a hand with BigTwoCard.compareTo.
+     * @param blackhole the sink of the results
+     */
+    public void compareCards(Blackhole blackhole) {
+        Card[] hand = nextHand();
+        for (int i = 0; i < 12; i++) {
+            blackhole.consume(hand[i].compareTo(hand[i + 1]));
+        }
+    }
+
+    /**
+     * A method for sorting a hand with BigTwoCard.compareTo.
+     * @param blackhole the sink of the results
+     */
+    public void sortHand(Blackhole blackhole) {
+        System.arraycopy(nextHand(), 0, work, 0, 13);
+        Arrays.sort(work);
+        blackhole.consume(work);
+    }
+
+    /**
+     * A method for sorting a hand with the old comparison, which built two temporary cards per call.
+     * @param blackhole the sink of the results
+     */
+    public void sortHandLegacy(Blackhole blackhole) {
+        System.arraycopy(nextHand(), 0, work, 0, 13);
+        Arrays.sort(work, LEGACY_ORDER);
+        blackhole.consume(work);
+    }
+
+    /**
+     * A method for building a CardList from a hand and sorting it with CardList.sort.
+     * @param blackhole the sink of the results
+     */
+    public void sortCardList(Blackhole blackhole) {
+        Card[] hand = nextHand();
+        CardList cards = new CardList();
+        for (int i = 0; i < 13; i++) {
+            cards.addCard(hand[i]);
+        }
+        cards.sort();
+        blackhole.consume(cards);
+    }
+
+    /**
+     * A method for retrieving the next prepared hand.
+     * @return a random 13-card hand
+     */
+    private Card[] nextHand() {
+        next = (next + 1) & (NUM_OF_HANDS - 1);
+        return hands[next];
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bigtwo.jmh.HandBenchmark;
+
+/**
+ * The HandWorkload class is used by HandBenchmark to compose and compare random valid hands of one type.
+ * @author Zhou Jingran
+ *
+ */
+public class HandWorkload implements HandBenchmark.Operations {
+    private static final int SAMPLES = 64; // the number of valid hands prepared
+
+    private final CardGamePlayer player = new CardGamePlayer("Player"); // the player of the hands
+    private final CardList[] cards = new CardList[SAMPLES]; // the cards of the valid hands
+    private final Hand[] hands = new Hand[SAMPLES]; // the same hands, composed
+    private int next = 0; // the index of the next hand to use
+
+    /**
+     * A constructor for preparing random valid hands of a type, by dealing random sets of cards and
+     * keeping those which form a hand of the type. Few random five cards form a hand, so some are made
+     * into a straight flush or a quad.
+     * @param type the type of the hands, as returned by HandClassifier.getType()
+     * @throws IllegalArgumentException if there is no type of the name
+     */
+    public HandWorkload(String type) {
+        int category = -1;
+        for (int c = 0; c < 8; c++) {
+            if (HandClassifier.getType(c << 8).equals(type)) {
+                category = c;
+            }
+        }
+        if (category < 0) {
+            throw new IllegalArgumentException("No type of hand " + type);
+        }
+        SplittableRandom random = new SplittableRandom(2396);
+        int count = 0;
+        while (count < SAMPLES) {
+            int size = new int[] {1, 2, 3, 5}[random.nextInt(4)];
+            long mask = 0L;
+            while (Long.bitCount(mask) < size) {
+                mask |= 1L << random.nextInt(52);
+            }
+            int key = HandClassifier.classify(mask);
+            if (key == HandClassifier.INVALID && size == 5) {
+                int low = random.nextInt(9);
+                int suit = random.nextInt(4);
+                mask = random.nextBoolean() ? 0x11111L << (low * 4 + suit)
+                        : 0xFL << (low * 4) | 1L << ((low + 1) * 4 + suit);
+                key = HandClassifier.classify(mask);
+            }
+            if (HandClassifier.getCategory(key) == category) {
+                cards[count] = new CardSet(mask).toCardList();
+                hands[count] = BigTwoClient.composeHand(player, cards[count]);
+                count++;
+            }
+        }
+    }
+
+    /**
+     * A method for composing a hand of the type with BigTwoClient.composeHand.
+     * @param blackhole the sink of the results
+     */
+    public void composeHand(Blackhole blackhole) {
+        blackhole.consume(BigTwoClient.composeHand(player, cards[nextSample()]));
+    }
+
+    /**
+     * A method for checking if a hand of the type beats another with its Hand.beats override.
+     * @param blackhole the sink of the results
+     */
+    public void beats(Blackhole blackhole) {
+        int i = nextSample();
+        blackhole.consume(hands[i].beats(hands[(i + 1) & (SAMPLES - 1)]));
+    }
+
+    /**
+     * A method for retrieving the index of the next prepared hand.
+     * @return an index below SAMPLES
+     */
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bigtwo.jmh.MessageBenchmark;
+import bigtwo.jmh.ObjectStreamBenchmark;
+
+/**
+ * The MessageWorkload class is used by MessageBenchmark and ObjectStreamBenchmark to encode, decode and
+ * send CardGameMessage objects: a START message holding a shuffled deck, a START message holding a deck
+ * shuffled with a seed, and a MOVE message.
+ * @author Zhou Jingran
+ *
+ */
+public class MessageWorkload implements MessageBenchmark.Operations, ObjectStreamBenchmark.Operations {
+    private final MessageCodec codec; // the codec of the messages, or null for object streams
+    private final CardGameMessage start; // a START message of a shuffled deck
+    private final CardGameMessage seededStart; // a START message of a deck shuffled with a seed
+    private final CardGameMessage move; // a MOVE message of five cards
+    private final byte[] encodedStart; // the encoded START message
+    private final byte[] encodedSeededStart; // the encoded START message of the seeded deck
+    private final byte[] encodedMove; // the encoded MOVE message
+
+    /**
+     * A constructor for preparing the messages for object streams.
+     * @throws IOException if the messages cannot be encoded
+     */
+    public MessageWorkload() throws IOException {
+        this(null);
+    }
+
+    /**
+     * A constructor for preparing the messages and their encodings for a codec.
+     * @param codec "Serialized" for a SerializedCodec, "Binary" for a BinaryCodec, or null for object streams
+     * @throws IOException if the messages cannot be encoded
+     * @throws IllegalArgumentException if there is no codec of the name
+     */
+    public MessageWorkload(String codec) throws IOException {
+        if (codec == null) {
+            this.codec = null;
+        } else if (codec.equals("Serialized")) {
+            this.codec = new SerializedCodec();
+        } else if (codec.equals("Binary")) {
+            this.codec = new BinaryCodec();
+        } else {
+            throw new IllegalArgumentException("No codec " + codec);
+        }
+        Deck deck = new BigTwoDeck();
+        deck.shuffle(new SplittableRandom(2396));
+        start = new CardGameMessage(CardGameMessage.START, -1, deck);
+        Deck seededDeck = new BigTwoDeck();
+        seededDeck.shuffle(2396L);
+        seededStart = new CardGameMessage(CardGameMessage.START, -1, seededDeck);
+        move = new CardGameMessage(CardGameMessage.MOVE, 2, 0x1F0L);
+        encodedStart = this.codec == null ? null : this.codec.encode(start);
+        encodedSeededStart = this.codec == null ? null : this.codec.encode(seededStart);
+        encodedMove = this.codec == null ? null : this.codec.encode(move);
+    }
+
+    /**
+     * A method for encoding the START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded
+     */
+    public void encodeStart(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.encode(start));
+    }
+
+    /**
+     * A method for decoding the START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be decoded
+     */
+    public void decodeStart(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.decode(encodedStart, 0, encodedStart.length));
+    }
+
+    /**
+     * A method for encoding the START message of the seeded deck.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded
+     */
+    public void encodeStartSeeded(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.encode(seededStart));
+    }
+
+    /**
+     * A method for decoding the START message of the seeded deck.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be decoded
+     */
+    public void decodeStartSeeded(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.decode(encodedSeededStart, 0, encodedSeededStart.length));
+    }
+
+    /**
+     * A method for encoding the MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded
+     */
+    public void encodeMove(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.encode(move));
+    }
+
+    /**
+     * A method for decoding the MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be decoded
+     */
+    public void decodeMove(Blackhole blackhole) throws IOException {
+        blackhole.consume(codec.decode(encodedMove, 0, encodedMove.length));
+    }
+
+    /**
+     * A method for encoding the START message and decoding it back, with the codec or through object
+     * streams.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    public void roundTripStart(Blackhole blackhole) throws IOException {
+        blackhole.consume(roundTrip(start));
+    }
+
+    /**
+     * A method for encoding the MOVE message and decoding it back, with the codec or through object
+     * streams.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    public void roundTripMove(Blackhole blackhole) throws IOException {
+        blackhole.consume(roundTrip(move));
+    }
+
+    /**
+     * A method for encoding a message and decoding it back. Without a codec, the message is written to
+     * a new ObjectOutputStream and read from a new ObjectInputStream, as a legacy client and server do.
+     * @param message the message
+     * @return the message decoded
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    private CardGameMessage roundTrip(CardGameMessage message) throws IOException {
+        if (codec != null) {
+            byte[] bytes = codec.encode(message);
+            return codec.decode(bytes, 0, bytes.length);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(message);
+        out.flush();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        try {
+            return (CardGameMessage) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
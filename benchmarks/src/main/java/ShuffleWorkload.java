@@ -0,0 +1,80 @@
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bigtwo.jmh.ShuffleBenchmark;
+
+/**
+ * The ShuffleWorkload class is used by ShuffleBenchmark to shuffle a deck with each source of random
+ * numbers, as Deck.shuffle used to, and to shuffle an array of card indices.
+ * @author Zhou Jingran
+ *
+ */
+public class ShuffleWorkload implements ShuffleBenchmark.Operations {
+    private final Deck deck = new BigTwoDeck(); // the deck being shuffled
+    private final SplittableRandom splittable = new SplittableRandom(2396); // a fast source of random numbers
+    private final SecureRandom secure = new SecureRandom(); // a cryptographically strong source
+    private final byte[] indices = new byte[52]; // the indices of the cards
+
+    /**
+     * A constructor for preparing the deck and the card indices.
+     */
+    public ShuffleWorkload() {
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = (byte) i;
+        }
+    }
+
+    /**
+     * A method for shuffling the deck with the random numbers of the current thread.
+     * @param blackhole the sink of the results
+     */
+    public void shuffleDeck(Blackhole blackhole) {
+        deck.shuffle();
+        blackhole.consume(deck.getCard(0));
+    }
+
+    /**
+     * A method for shuffling the deck as Deck.shuffle used to, swapping each position with a random one,
+     * which makes some orders more likely than others.
+     * @param blackhole the sink of the results
+     */
+    public void shuffleDeckLegacy(Blackhole blackhole) {
+        for (int i = 0; i < deck.size(); i++) {
+            int j = (int) (Math.random() * deck.size());
+            if (i != j) {
+                Card card = deck.setCard(i, deck.getCard(j));
+                deck.setCard(j, card);
+            }
+        }
+        blackhole.consume(deck.getCard(0));
+    }
+
+    /**
+     * A method for shuffling the deck with a SplittableRandom.
+     * @param blackhole the sink of the results
+     */
+    public void shuffleDeckSplittable(Blackhole blackhole) {
+        deck.shuffle(splittable);
+        blackhole.consume(deck.getCard(0));
+    }
+
+    /**
+     * A method for shuffling the deck with a SecureRandom.
+     * @param blackhole the sink of the results
+     */
+    public void shuffleDeckSecure(Blackhole blackhole) {
+        deck.shuffle(secure);
+        blackhole.consume(deck.getCard(0));
+    }
+
+    /**
+     * A method for shuffling the card indices with Deck.shuffle(byte[], RandomGenerator).
+     * @param blackhole the sink of the results
+     */
+    public void shuffleIndices(Blackhole blackhole) {
+        Deck.shuffle(indices, splittable);
+        blackhole.consume(indices[0]);
+    }
+}
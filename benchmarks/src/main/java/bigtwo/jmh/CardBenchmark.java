@@ -0,0 +1,106 @@
+package bigtwo.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The CardBenchmark class is used to measure BigTwoCard.compareTo and the sorting of cards: a hand of 13
+ * cards sorted by the current order and by the order BigTwoCard.compareTo used to compute, and a CardList
+ * sorted by CardList.sort.
+ * @author Zhou Jingran
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+    /**
+     * The operations measured, implemented by CardWorkload in the unnamed package of the game.
+     */
+    public interface Operations {
+        /**
+         * A method for comparing the cards of a random hand.
+         * @param blackhole the sink of the results
+         */
+        void compareCards(Blackhole blackhole);
+
+        /**
+         * A method for sorting a random hand of 13 cards.
+         * @param blackhole the sink of the results
+         */
+        void sortHand(Blackhole blackhole);
+
+        /**
+         * A method for sorting a random hand of 13 cards by the legacy order.
+         * @param blackhole the sink of the results
+         */
+        void sortHandLegacy(Blackhole blackhole);
+
+        /**
+         * A method for sorting a random hand of 13 cards in a CardList.
+         * @param blackhole the sink of the results
+         */
+        void sortCardList(Blackhole blackhole);
+    }
+
+    private Operations operations; // the workload of the trial
+
+    /**
+     * A method for creating the workload of the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = Workloads.create("CardWorkload", Operations.class);
+    }
+
+    /**
+     * A method for measuring BigTwoCard.compareTo.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void compareCards(Blackhole blackhole) {
+        operations.compareCards(blackhole);
+    }
+
+    /**
+     * A method for measuring the sorting of a hand of 13 cards.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void sortHand(Blackhole blackhole) {
+        operations.sortHand(blackhole);
+    }
+
+    /**
+     * A method for measuring the sorting of a hand of 13 cards by the legacy order, as a baseline.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void sortHandLegacy(Blackhole blackhole) {
+        operations.sortHandLegacy(blackhole);
+    }
+
+    /**
+     * A method for measuring CardList.sort on a hand of 13 cards.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void sortCardList(Blackhole blackhole) {
+        operations.sortCardList(blackhole);
+    }
+}
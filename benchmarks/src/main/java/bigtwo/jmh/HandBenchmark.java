@@ -0,0 +1,79 @@
+package bigtwo.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The HandBenchmark class is used to measure BigTwoClient.composeHand and the Hand.beats override of
+ * each type of hand, on random valid hands of the type.
+ * @author Zhou Jingran
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+    @Param({"Single", "Pair", "Triple", "Straight", "Flush", "FullHouse", "Quad", "StraightFlush"})
+    public String type; // the type of the hands
+
+    /**
+     * The operations measured, implemented by HandWorkload in the unnamed package of the game.
+     */
+    public interface Operations {
+        /**
+         * A method for composing a random valid hand of the type.
+         * @param blackhole the sink of the results
+         */
+        void composeHand(Blackhole blackhole);
+
+        /**
+         * A method for comparing two random hands of the type.
+         * @param blackhole the sink of the results
+         */
+        void beats(Blackhole blackhole);
+    }
+
+    private Operations operations; // the workload of the trial
+
+    /**
+     * A method for creating the workload of the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = Workloads.create("HandWorkload", Operations.class, type);
+    }
+
+    /**
+     * A method for measuring BigTwoClient.composeHand on hands of the type.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void composeHand(Blackhole blackhole) {
+        operations.composeHand(blackhole);
+    }
+
+    /**
+     * A method for measuring the Hand.beats override of the type.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void beats(Blackhole blackhole) {
+        operations.beats(blackhole);
+    }
+}
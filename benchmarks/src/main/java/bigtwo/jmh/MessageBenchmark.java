@@ -0,0 +1,187 @@
+package bigtwo.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The MessageBenchmark class is used to measure the encoding, decoding and round trips of CardGameMessage
+ * objects with each protocol: a START message holding a shuffled deck, a START message holding a seeded
+ * deck, and a MOVE message. ObjectStreamBenchmark measures the object streams of legacy clients.
+ * @author Zhou Jingran
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    @Param({"Serialized", "Binary"})
+    public String codec; // the codec, i.e. the prefix of the name of a MessageCodec
+
+    /**
+     * The operations measured, implemented by MessageWorkload in the unnamed package of the game.
+     */
+    public interface Operations {
+        /**
+         * A method for encoding a START message.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void encodeStart(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for decoding a START message.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void decodeStart(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for encoding a START message of a seeded deck.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void encodeStartSeeded(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for decoding a START message of a seeded deck.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void decodeStartSeeded(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for encoding a MOVE message.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void encodeMove(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for decoding a MOVE message.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void decodeMove(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for encoding a START message and decoding it back.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void roundTripStart(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for encoding a MOVE message and decoding it back.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void roundTripMove(Blackhole blackhole) throws IOException;
+    }
+
+    private Operations operations; // the workload of the trial
+
+    /**
+     * A method for creating the workload of the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = Workloads.create("MessageWorkload", Operations.class, codec);
+    }
+
+    /**
+     * A method for measuring the encoding of a START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void encodeStart(Blackhole blackhole) throws IOException {
+        operations.encodeStart(blackhole);
+    }
+
+    /**
+     * A method for measuring the decoding of a START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void decodeStart(Blackhole blackhole) throws IOException {
+        operations.decodeStart(blackhole);
+    }
+
+    /**
+     * A method for measuring the encoding of a START message of a seeded deck.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void encodeStartSeeded(Blackhole blackhole) throws IOException {
+        operations.encodeStartSeeded(blackhole);
+    }
+
+    /**
+     * A method for measuring the decoding of a START message of a seeded deck.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void decodeStartSeeded(Blackhole blackhole) throws IOException {
+        operations.decodeStartSeeded(blackhole);
+    }
+
+    /**
+     * A method for measuring the encoding of a MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void encodeMove(Blackhole blackhole) throws IOException {
+        operations.encodeMove(blackhole);
+    }
+
+    /**
+     * A method for measuring the decoding of a MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void decodeMove(Blackhole blackhole) throws IOException {
+        operations.decodeMove(blackhole);
+    }
+
+    /**
+     * A method for measuring the round trip of a START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void roundTripStart(Blackhole blackhole) throws IOException {
+        operations.roundTripStart(blackhole);
+    }
+
+    /**
+     * A method for measuring the round trip of a MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void roundTripMove(Blackhole blackhole) throws IOException {
+        operations.roundTripMove(blackhole);
+    }
+}
@@ -0,0 +1,80 @@
+package bigtwo.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The ObjectStreamBenchmark class is used to measure the round trips of CardGameMessage objects through a
+ * new ObjectOutputStream and ObjectInputStream, as legacy clients and servers send them.
+ * @author Zhou Jingran
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectStreamBenchmark {
+    /**
+     * The operations measured, implemented by MessageWorkload in the unnamed package of the game.
+     */
+    public interface Operations {
+        /**
+         * A method for sending a START message through object streams.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void roundTripStart(Blackhole blackhole) throws IOException;
+
+        /**
+         * A method for sending a MOVE message through object streams.
+         * @param blackhole the sink of the results
+         * @throws IOException if the message cannot be encoded or decoded
+         */
+        void roundTripMove(Blackhole blackhole) throws IOException;
+    }
+
+    private Operations operations; // the workload of the trial
+
+    /**
+     * A method for creating the workload of the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = Workloads.create("MessageWorkload", Operations.class);
+    }
+
+    /**
+     * A method for measuring the round trip of a START message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void roundTripStart(Blackhole blackhole) throws IOException {
+        operations.roundTripStart(blackhole);
+    }
+
+    /**
+     * A method for measuring the round trip of a MOVE message.
+     * @param blackhole the sink of the results
+     * @throws IOException if the message cannot be encoded or decoded
+     */
+    @Benchmark
+    public void roundTripMove(Blackhole blackhole) throws IOException {
+        operations.roundTripMove(blackhole);
+    }
+}
@@ -0,0 +1,120 @@
+package bigtwo.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The ShuffleBenchmark class is used to measure Deck.shuffle with each source of random numbers, the
+ * legacy shuffle it replaced, and the shuffle of an array of card indices.
+ * @author Zhou Jingran
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShuffleBenchmark {
+    /**
+     * The operations measured, implemented by ShuffleWorkload in the unnamed package of the game.
+     */
+    public interface Operations {
+        /**
+         * A method for shuffling a deck with the random numbers of the current thread.
+         * @param blackhole the sink of the results
+         */
+        void shuffleDeck(Blackhole blackhole);
+
+        /**
+         * A method for shuffling a deck as Deck.shuffle used to.
+         * @param blackhole the sink of the results
+         */
+        void shuffleDeckLegacy(Blackhole blackhole);
+
+        /**
+         * A method for shuffling a deck with a SplittableRandom.
+         * @param blackhole the sink of the results
+         */
+        void shuffleDeckSplittable(Blackhole blackhole);
+
+        /**
+         * A method for shuffling a deck with a SecureRandom.
+         * @param blackhole the sink of the results
+         */
+        void shuffleDeckSecure(Blackhole blackhole);
+
+        /**
+         * A method for shuffling an array of 52 card indices.
+         * @param blackhole the sink of the results
+         */
+        void shuffleIndices(Blackhole blackhole);
+    }
+
+    private Operations operations; // the workload of the trial
+
+    /**
+     * A method for creating the workload of the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = Workloads.create("ShuffleWorkload", Operations.class);
+    }
+
+    /**
+     * A method for measuring Deck.shuffle with the random numbers of the current thread.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void shuffleDeck(Blackhole blackhole) {
+        operations.shuffleDeck(blackhole);
+    }
+
+    /**
+     * A method for measuring the legacy shuffle, as a baseline.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void shuffleDeckLegacy(Blackhole blackhole) {
+        operations.shuffleDeckLegacy(blackhole);
+    }
+
+    /**
+     * A method for measuring Deck.shuffle with a SplittableRandom.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void shuffleDeckSplittable(Blackhole blackhole) {
+        operations.shuffleDeckSplittable(blackhole);
+    }
+
+    /**
+     * A method for measuring Deck.shuffle with a SecureRandom.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void shuffleDeckSecure(Blackhole blackhole) {
+        operations.shuffleDeckSecure(blackhole);
+    }
+
+    /**
+     * A method for measuring the shuffle of an array of card indices.
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void shuffleIndices(Blackhole blackhole) {
+        operations.shuffleIndices(blackhole);
+    }
+}
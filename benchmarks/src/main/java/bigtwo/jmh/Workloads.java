@@ -0,0 +1,40 @@
+package bigtwo.jmh;
+
+import java.util.Arrays;
+
+/**
+ * The Workloads class is used by the JMH benchmarks to create the workloads which they measure. JMH only
+ * runs benchmarks in a named package, from which the classes of the game, in the unnamed package, cannot
+ * be named. So the measured code is written in workload classes of the unnamed package, which call the
+ * game directly and consume the results with a Blackhole, and each benchmark calls its workload through
+ * an interface of its own. A workload is created by reflection when a trial is set up, so the measured
+ * code has no reflection, and the interface calls, which only ever see one class, are inlined by the JIT.
+ * @author Zhou Jingran
+ *
+ */
+final class Workloads {
+    /**
+     * A constructor which is never used, as the class only has static methods.
+     */
+    private Workloads() {}
+
+    /**
+     * A method for creating a workload of the unnamed package.
+     * @param className the name of the class of the workload
+     * @param type the interface which the workload implements
+     * @param params the parameters of the benchmark, passed to the constructor of the workload
+     * @param <T> the type of the interface
+     * @return the workload
+     * @throws IllegalStateException if the workload cannot be created
+     */
+    static <T> T create(String className, Class<T> type, String... params) {
+        try {
+            Class<?>[] paramTypes = new Class<?>[params.length];
+            Arrays.fill(paramTypes, String.class);
+            Object workload = Class.forName(className).getConstructor(paramTypes).newInstance((Object[]) params);
+            return type.cast(workload);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * The BigTwoBenchmark class is used to measure the hot paths of the Big Two card game.
+ * Each benchmark is warmed up and then timed over several rounds, and the average time per
+ * operation is printed. Run it with the names of the benchmarks to run, or with no arguments
+ * to run all of them, e.g. "java BigTwoBenchmark sortHand sortHandLegacy". The benchmarks cover
+ * card comparison and sorting, hand classification, composeHand and Hand.beats for every type of
+ * hand, move generation, hand planning, Deck.shuffle, the encoding, decoding and round trips of
+ * messages with every protocol, and random rollouts on a BigTwoState, so that each performance
+ * change can be judged against the same baseline.
+ * Run it with "search" to measure the iterations per second of BigTwoSearch on one or more threads,
+ * and with "solver" to measure the nodes per second of BigTwoSolver.
+ * The same operations are also measured under JMH, with forks and error bounds, by the benchmarks module
+ * of the Gradle build, e.g. "./gradlew :benchmarks:jmh -Pjmh=CardBenchmark".
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoBenchmark {
+    private static final int WARMUP_ROUNDS = 5; // the number of rounds run before timing
+    private static final int MEASURE_ROUNDS = 10; // the number of rounds timed
+    private static final long ROUND_NANOS = 200_000_000L; // the minimum duration of a round
+    private static final int NUM_OF_HANDS = 1024; // the number of random hands prepared for each benchmark
+    private static final int SAMPLES = 64; // the number of valid hands prepared for each category
+    private static volatile int sink; // a sink for the results, so the JIT cannot remove the work
+
+    // the Big Two order as BigTwoCard.compareTo used to compute it, kept as a baseline
+    private static final Comparator<Card> LEGACY_ORDER = new Comparator<Card>() {
+        public int compare(Card a, Card b) {
+            Card tempA = new Card(a.getSuit(), (a.getRank() + 11) % 13);
+            Card tempB = new Card(b.getSuit(), (b.getRank() + 11) % 13);
+            return tempA.compareTo(tempB);
+        }
+    };
+
+    private final ArrayList<String> names = new ArrayList<String>(); // the names of the benchmarks
+    private final ArrayList<IntSupplier> bodies = new ArrayList<IntSupplier>(); // the benchmarks
+    private final Card[][] hands = new Card[NUM_OF_HANDS][]; // random 13-card hands
+    private final Card[] work = new Card[13]; // a scratch array for sorting
+    private final long[] fives = new long[NUM_OF_HANDS]; // masks of the first five cards of each hand
+    private final long[] thirteens = new long[NUM_OF_HANDS]; // masks of the whole of each hand
+    private final long[] moves = new long[MoveGenerator.MAX_MOVES]; // a buffer for generated moves
+    private final CardList[][] handCards = new CardList[8][]; // random valid hands of each category
+    private final Hand[][] handsOfType = new Hand[8][]; // the same hands, composed
+    private int next = 0; // the index of the next hand to use
+    private int nextSample = 0; // the index of the next valid hand of a category to use
+
+    /**
+     * A constructor for preparing the random hands and registering all benchmarks.
+     */
+    public BigTwoBenchmark() {
+        SplittableRandom random = new SplittableRandom(2396);
+        Deck deck = new BigTwoDeck();
+        for (int i = 0; i < NUM_OF_HANDS; i++) {
+            hands[i] = new Card[13];
+            for (int j = 0; j < 13; j++) {
+                int k = j + random.nextInt(52 - j);
+                Card card = deck.setCard(k, deck.getCard(j));
+                deck.setCard(j, card);
+                hands[i][j] = card;
+                if (j < 5) {
+                    fives[i] |= 1L << CardSet.indexOf(card);
+                }
+                thirteens[i] |= 1L << CardSet.indexOf(card);
+            }
+        }
+
+        prepareHandsOfType(random);
+
+        add("compareCards", this::compareCards);
+        add("sortHand", this::sortHand);
+        add("sortHandLegacy", this::sortHandLegacy);
+        add("sortCardList", this::sortCardList);
+        add("classifyFive", () -> HandClassifier.classifyFive(nextFive()));
+        add("lookupFive", () -> HandTable.lookup(nextFive()));
+        add("generateLead", () -> MoveGenerator.generate(nextThirteen(), HandClassifier.INVALID, 0L, false, moves));
+        int lowStraight = HandClassifier.classify(1L << 0 | 1L << 5 | 1L << 8 | 1L << 12 | 1L << 16);
+        add("generateVsStraight", () -> MoveGenerator.generate(nextThirteen(), lowStraight, 0L, true, moves));
+        HandPlanner planner = new HandPlanner();
+        add("planHand", () -> planner.getNumOfMoves(nextThirteen()));
+        CardGamePlayer player = new CardGamePlayer("Player");
+        for (int category = 0; category < 8; category++) {
+            String type = HandClassifier.getType(category << 8);
+            CardList[] cards = handCards[category];
+            Hand[] composed = handsOfType[category];
+            add("composeHand" + type, () -> BigTwoClient.composeHand(player, cards[nextSample()]).getKey());
+            add("beats" + type, () -> {
+                int i = nextSample();
+                return composed[i].beats(composed[(i + 1) & (SAMPLES - 1)]) ? 1 : 0;
+            });
+        }
+        Deck shuffled = new BigTwoDeck();
+        add("shuffleDeck", () -> {
+            shuffled.shuffle();
+            return shuffled.getCard(0).getRank();
+        });
+        add("shuffleDeckLegacy", () -> {
+            shuffleLegacy(shuffled);
+            return shuffled.getCard(0).getRank();
+        });
+        SplittableRandom splittable = new SplittableRandom(2396);
+        add("shuffleDeckSplittable", () -> {
+            shuffled.shuffle(splittable);
+            return shuffled.getCard(0).getRank();
+        });
+        SecureRandom secure = new SecureRandom();
+        add("shuffleDeckSecure", () -> {
+            shuffled.shuffle(secure);
+            return shuffled.getCard(0).getRank();
+        });
+        byte[] indices = new byte[52];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = (byte) i;
+        }
+        add("shuffleIndices", () -> {
+            Deck.shuffle(indices, splittable);
+            return indices[0];
+        });
+
+        deck.shuffle();
+        CardGameMessage start = new CardGameMessage(CardGameMessage.START, -1, deck);
+        Deck seededDeck = new BigTwoDeck();
+        seededDeck.shuffle(2396L);
+        CardGameMessage seededStart = new CardGameMessage(CardGameMessage.START, -1, seededDeck);
+        CardGameMessage move = new CardGameMessage(CardGameMessage.MOVE, 2, fives[0]);
+        for (MessageCodec codec : new MessageCodec[] {new SerializedCodec(), new BinaryCodec()}) {
+            String suffix = codec.getClass().getSimpleName().replace("Codec", "");
+            byte[] encodedStart = encode(codec, start);
+            byte[] encodedSeededStart = encode(codec, seededStart);
+            byte[] encodedMove = encode(codec, move);
+            System.out.printf("%-24s START %d bytes (%d seeded), MOVE %d bytes%n", codec.getClass().getSimpleName(),
+                    encodedStart.length, encodedSeededStart.length, encodedMove.length);
+            add("encodeStart" + suffix, () -> encode(codec, start).length);
+            add("decodeStart" + suffix, () -> ((Deck) decode(codec, encodedStart).getData()).size());
+            add("encodeStartSeeded" + suffix, () -> encode(codec, seededStart).length);
+            add("decodeStartSeeded" + suffix, () -> ((Deck) decode(codec, encodedSeededStart).getData()).size());
+            add("encodeMove" + suffix, () -> encode(codec, move).length);
+            add("decodeMove" + suffix, () -> decode(codec, encodedMove).getPlayerID());
+            add("roundTripStart" + suffix, () -> ((Deck) decode(codec, encode(codec, start)).getData()).size());
+            add("roundTripMove" + suffix, () -> decode(codec, encode(codec, move)).getPlayerID());
+            add("broadcastStart" + suffix, () -> broadcastEach(codec, start));
+            add("broadcastStartShared" + suffix, () -> broadcastShared(codec, start));
+        }
+        add("roundTripStartObjectStream", () -> ((Deck) roundTrip(start).getData()).size());
+        add("roundTripMoveObjectStream", () -> roundTrip(move).getPlayerID());
+
+        BigTwoGame game = new BigTwoGame();
+        game.start(seededDeck);
+        BigTwoState dealt = new BigTwoState(game);
+        BigTwoState playout = new BigTwoState();
+        add("rollout", () -> {
+            playout.copyFrom(dealt);
+            while (!playout.isOver()) {
+                playout.applyMove(moves[splittable.nextInt(playout.generateMoves(moves))]);
+            }
+            return playout.getWinner();
+        });
+    }
+
+    /**
+     * A method for registering a benchmark.
+     * @param name the name of the benchmark
+     * @param body the operation to be timed, returning a value to be consumed
+     */
+    private void add(String name, IntSupplier body) {
+        names.add(name);
+        bodies.add(body);
+    }
+
+    /**
+     * A method for preparing random valid hands of each category, by dealing random sets of cards
+     * and keeping those which form a hand of a category still short of samples.
+     * @param random the source of random numbers
+     */
+    private void prepareHandsOfType(SplittableRandom random) {
+        CardGamePlayer player = new CardGamePlayer("Player");
+        int[] counts = new int[8];
+        for (int category = 0; category < 8; category++) {
+            handCards[category] = new CardList[SAMPLES];
+            handsOfType[category] = new Hand[SAMPLES];
+        }
+        int filled = 0;
+        while (filled < 8) {
+            int size = new int[] {1, 2, 3, 5}[random.nextInt(4)];
+            long mask = 0L;
+            while (Long.bitCount(mask) < size) {
+                mask |= 1L << random.nextInt(52);
+            }
+            int key = HandClassifier.classify(mask);
+            if (key == HandClassifier.INVALID && size == 5) {
+                // few random five cards form a hand, so some are made into a straight flush or a quad
+                int low = random.nextInt(9);
+                int suit = random.nextInt(4);
+                mask = random.nextBoolean() ? 0x11111L << (low * 4 + suit)
+                        : 0xFL << (low * 4) | 1L << ((low + 1) * 4 + suit);
+                key = HandClassifier.classify(mask);
+            }
+            int category = HandClassifier.getCategory(key);
+            if (category >= 0 && counts[category] < SAMPLES) {
+                CardList cards = new CardSet(mask).toCardList();
+                handCards[category][counts[category]] = cards;
+                handsOfType[category][counts[category]] = BigTwoClient.composeHand(player, cards);
+                if (++counts[category] == SAMPLES) {
+                    filled++;
+                }
+            }
+        }
+    }
+
+    /**
+     * A method for retrieving the index of the next prepared valid hand of a category.
+     * @return an index below SAMPLES
+     */
+    private int nextSample() {
+        nextSample = (nextSample + 1) & (SAMPLES - 1);
+        return nextSample;
+    }
+
+    /**
+     * A method for retrieving the next prepared hand.
+     * @return a random 13-card hand
+     */
+    private Card[] nextHand() {
+        next = (next + 1) & (NUM_OF_HANDS - 1);
+        return hands[next];
+    }
+
+    /**
+     * A method for retrieving the mask of the next prepared set of five cards.
+     * @return a mask with five bits set
+     */
+    private long nextFive() {
+        next = (next + 1) & (NUM_OF_HANDS - 1);
+        return fives[next];
+    }
+
+    /**
+     * A method for retrieving the mask of the next prepared hand.
+     * @return a mask with 13 bits set
+     */
+    private long nextThirteen() {
+        next = (next + 1) & (NUM_OF_HANDS - 1);
+        return thirteens[next];
+    }
+
+    /**
+     * A method for encoding a message, for a benchmark which cannot throw checked exceptions.
+     * @param codec the codec
+     * @param message the message to be encoded
+     * @return the bytes of the encoded message
+     */
+    private static byte[] encode(MessageCodec codec, CardGameMessage message) {
+        try {
+            return codec.encode(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A method for decoding a message, for a benchmark which cannot throw checked exceptions.
+     * @param codec the codec
+     * @param data the bytes of the encoded message
+     * @return the decoded message
+     */
+    private static CardGameMessage decode(MessageCodec codec, byte[] data) {
+        try {
+            return codec.decode(data, 0, data.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A method for writing a message to an ObjectOutputStream and reading it back, as a legacy client
+     * and server do.
+     * @param message the message
+     * @return the message read back
+     */
+    private static CardGameMessage roundTrip(CardGameMessage message) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(message);
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            return (CardGameMessage) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes a message for each of four players, as the server did before broadcasts were shared.
+     * @param codec the codec of the players
+     * @param message the message to be broadcast
+     * @return the total number of bytes encoded
+     */
+    private static int broadcastEach(MessageCodec codec, CardGameMessage message) {
+        int length = 0;
+        for (int i = 0; i < 4; i++) {
+            length += encode(codec, message).length;
+        }
+        return length;
+    }
+
+    /**
+     * Retrieves the frame of a shared message for each of four players.
+     * @param codec the codec of the players
+     * @param message the message to be broadcast
+     * @return the total number of bytes in the frames
+     */
+    private static int broadcastShared(MessageCodec codec, CardGameMessage message) {
+        try {
+            SharedMessage shared = new SharedMessage(message);
+            int length = 0;
+            for (int i = 0; i < 4; i++) {
+                length += shared.getFrame(codec).length;
+            }
+            return length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compares neighbouring cards of a 13-card hand with BigTwoCard.compareTo.
+     */
+    private int compareCards() {
+        Card[] hand = nextHand();
+        int result = 0;
+        for (int i = 0; i < 12; i++) {
+            result += hand[i].compareTo(hand[i + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts a 13-card hand with BigTwoCard.compareTo.
+     */
+    private int sortHand() {
+        System.arraycopy(nextHand(), 0, work, 0, 13);
+        Arrays.sort(work);
+        return work[0].getRank();
+    }
+
+    /**
+     * Sorts a 13-card hand with the old comparison, which built two temporary cards per call.
+     */
+    private int sortHandLegacy() {
+        System.arraycopy(nextHand(), 0, work, 0, 13);
+        Arrays.sort(work, LEGACY_ORDER);
+        return work[0].getRank();
+    }
+
+    /**
+     * Builds a CardList from a 13-card hand and sorts it.
+     */
+    private int sortCardList() {
+        Card[] hand = nextHand();
+        CardList cards = new CardList();
+        for (int i = 0; i < 13; i++) {
+            cards.addCard(hand[i]);
+        }
+        cards.sort();
+        return cards.getCard(0).getRank();
+    }
+
+    /**
+     * Shuffles a deck as Deck.shuffle used to, swapping each position with a random one, which makes
+     * some orders more likely than others.
+     * @param deck the deck to be shuffled
+     */
+    private static void shuffleLegacy(Deck deck) {
+        for (int i = 0; i < deck.size(); i++) {
+            int j = (int) (Math.random() * deck.size());
+            if (i != j) {
+                Card card = deck.setCard(i, deck.getCard(j));
+                deck.setCard(j, card);
+            }
+        }
+    }
+
+    /**
+     * A method for measuring the speed of BigTwoSearch with each way of running on several threads. It
+     * chooses the first move of several deals and prints the iterations per second.
+     * @param millis the time budget of a move, in milliseconds
+     */
+    private static void search(int millis) {
+        BigTwoGame game = new BigTwoGame();
+        Deck deck = new BigTwoDeck();
+        SplittableRandom random = new SplittableRandom(2396);
+        int numOfThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        deck.shuffle(2396L);
+        game.start(deck);
+        new BigTwoSearch(1_000_000_000L, Integer.MAX_VALUE, 1, false).chooseMove(new BigTwoState(game), random); // warmup
+        for (boolean sharedTree : new boolean[] {false, true}) {
+            for (int threads = 1; threads <= numOfThreads; threads *= 2) {
+                BigTwoSearch search = new BigTwoSearch(millis * 1_000_000L, Integer.MAX_VALUE, threads, sharedTree);
+                long start = System.nanoTime();
+                for (int deal = 0; deal < 16; deal++) {
+                    deck.shuffle(deal);
+                    game.start(deck);
+                    search.chooseMove(new BigTwoState(game), random.split());
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-12s %2d threads %10.0f iterations/s%n", sharedTree ? "shared tree" : "root trees",
+                        threads, search.getNumOfIterations() / seconds);
+            }
+        }
+    }
+
+    /**
+     * A method for measuring the speed of BigTwoSolver. It solves endgames with BigTwoSolver.ENDGAME_CARDS
+     * cards left, reached by random moves from seeded deals, with transposition tables of several sizes,
+     * and prints the nodes per second and the average time to solve a position.
+     * @param numOfPositions the number of endgames to solve
+     */
+    private static void solver(int numOfPositions) {
+        BigTwoGame game = new BigTwoGame();
+        Deck deck = new BigTwoDeck();
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        BigTwoState[] positions = new BigTwoState[numOfPositions];
+        SplittableRandom random = new SplittableRandom(2396);
+        for (int i = 0, deal = 0; i < numOfPositions; deal++) {
+            deck.shuffle(deal);
+            game.start(deck);
+            BigTwoState state = new BigTwoState(game);
+            while (!state.isOver() && state.getNumOfCardsLeft() > BigTwoSolver.ENDGAME_CARDS) {
+                state.applyMove(moves[random.nextInt(state.generateMoves(moves))]);
+            }
+            if (!state.isOver()) {
+                positions[i++] = state;
+            }
+        }
+        for (int log2Entries : new int[] {10, 16, 20}) {
+            BigTwoSolver solver = new BigTwoSolver(log2Entries);
+            long nodes = 0;
+            int solved = 0;
+            long start = System.nanoTime();
+            for (BigTwoState position : positions) {
+                solver.solve(position, 10_000_000_000L);
+                nodes += solver.getNodes();
+                solved += solver.isSolved() ? 1 : 0;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%7d entries %4d/%d solved %10.0f nodes/s %8.2f ms/position%n", 1 << log2Entries,
+                    solved, numOfPositions, nodes / seconds, 1000 * seconds / numOfPositions);
+        }
+    }
+
+    /**
+     * A method for running a benchmark and printing the average time per operation.
+     * @param name the name of the benchmark
+     * @param body the operation to be timed
+     */
+    private static void run(String name, IntSupplier body) {
+        double best = Double.MAX_VALUE;
+        double total = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long ops = 0;
+            int result = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                for (int i = 0; i < 1024; i++) {
+                    result += body.getAsInt();
+                }
+                ops += 1024;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ROUND_NANOS);
+            sink += result;
+            if (round >= WARMUP_ROUNDS) {
+                double nanosPerOp = (double) elapsed / ops;
+                total += nanosPerOp;
+                best = Math.min(best, nanosPerOp);
+            }
+        }
+        System.out.printf("%-32s %12.1f ns/op (best %.1f)%n", name, total / MEASURE_ROUNDS, best);
+    }
+
+    /**
+     * A method for running the benchmarks named in the arguments, or all benchmarks if there are none.
+     * With "search" as the first argument, search() is run instead, with the time budget of a move in
+     * milliseconds as the second argument (200 by default). With "solver", solver() is run instead, with
+     * the number of endgames as the second argument (200 by default).
+     * @param args the names of the benchmarks to run
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("solver")) {
+            solver(args.length > 1 ? Integer.parseInt(args[1]) : 200);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("search")) {
+            search(args.length > 1 ? Integer.parseInt(args[1]) : 200);
+            return;
+        }
+        BigTwoBenchmark benchmark = new BigTwoBenchmark();
+        for (int i = 0; i < benchmark.names.size(); i++) {
+            String name = benchmark.names.get(i);
+            if (args.length == 0 || Arrays.asList(args).contains(name)) {
+                run(name, benchmark.bodies.get(i));
+            }
+        }
+    }
+}
@@ -1,29 +1,94 @@
 /**
  * The BigTwoCard class is a subclass of the Card class, and is used to model a card used in a Big Two card game.
+ * There is exactly one instance for each of the 52 cards, which can be retrieved by of().
  * @author Zhou Jingran
  *
  */
 public class BigTwoCard extends Card {
+    // the UID computed for the class before it was made a flyweight, so that object streams of older clients still
+    // deserialize its cards, whose serialized form is unchanged as the ordinal is transient
+    private static final long serialVersionUID = -6882428045893598171L;
+    private static final BigTwoCard[] CARDS = new BigTwoCard[52]; // the cards indexed by ordinal
+
+    static {
+        for (int i = 0; i < 52; i++) {
+            CARDS[i] = new BigTwoCard(CardSet.suitOf(i), CardSet.rankOf(i));
+        }
+    }
+
+    private final transient int ordinal; // the position of this card in the Big Two order, between 0 and 51
+
 	/**
 	 * A constructor for building a card with the specified suit and rank
-	 * @param suit 
+	 * @param suit
 	 * 			an integer between 0 and 3 specifying the suit of the card
-	 * @param rank 
+	 * @param rank
 	 * 			an integer between 0 and 12 specifying the rank of the card
 	 */
-    public BigTwoCard(int suit, int rank) {
+    private BigTwoCard(int suit, int rank) {
         super(suit, rank);
+        this.ordinal = CardSet.indexOf(suit, rank);
+    }
+
+    /**
+     * A method for retrieving the card with the specified suit and rank.
+     * @param suit
+     * 			an integer between 0 and 3 specifying the suit of the card
+     * @param rank
+     * 			an integer between 0 and 12 specifying the rank of the card
+     * @return the shared instance of the card
+     */
+    public static BigTwoCard of(int suit, int rank) {
+        return CARDS[CardSet.indexOf(suit, rank)];
+    }
+
+    /**
+     * A method for retrieving the card at the specified position in the Big Two order.
+     * @param ordinal
+     * 			an integer between 0 and 51, where 0 is the 3 of Diamonds and 51 is the 2 of Spades
+     * @return the shared instance of the card
+     */
+    public static BigTwoCard of(int ordinal) {
+        return CARDS[ordinal];
+    }
+
+    /**
+     * A method for retrieving the position of this card in the Big Two order.
+     * It is the same as the bit index of this card in a CardSet.
+     * @return an integer between 0 and 51, where 0 is the 3 of Diamonds and 51 is the 2 of Spades
+     */
+    public int getOrdinal() {
+        return ordinal;
     }
 
     /**
      *  A method for comparing this card with the specified card for order.
-     *  @param card 
+     *  @param card
      *  			the object to be compared with this object
      *  @return negative, zero, positive integer value if this card is less than, equal to, greater than the specified card
      */
     public int compareTo(Card card) {
-        Card tempThis = new Card(this.getSuit(), (this.getRank()+11)%13);
-        Card tempCard = new Card(card.getSuit(), (card.getRank()+11)%13);
-        return tempThis.compareTo(tempCard);
+        if (card instanceof BigTwoCard) {
+            return ordinal - ((BigTwoCard) card).ordinal;
+        }
+        return ordinal - CardSet.indexOf(card.getSuit(), card.getRank());
+    }
+
+    /**
+     * A method for checking if the specified card is equal to this card.
+     * @param card
+     * 			the reference object with which to compare
+     * @return true if the specified card has the same suit and rank as this card
+     */
+    public boolean equals(Object card) {
+        return this == card || super.equals(card);
+    }
+
+    /**
+     * A method for replacing a deserialized card with the shared instance of the card.
+     * @return the shared instance of the card
+     */
+    private Object readResolve() {
+        return of(suit, rank);
     }
 }
@@ -1,5 +1,4 @@
 import java.io.*;
-import java.net.Socket;
 import java.util.ArrayList;
 
 /**
@@ -8,19 +7,21 @@ import java.util.ArrayList;
  *
  */
 public class BigTwoClient implements CardGame, NetworkGame {
+    public static final String PROTOCOL = "bigtwo.protocol"; // the system property selecting the protocol
     private int numOfPlayers = 0; // an integer specifying the number of players
-    private Deck deck; // a deck of cards
     private ArrayList<CardGamePlayer> playerList; // a list of players
-    private ArrayList<Hand> handsOnTable; // a list of hands played on the table
+    private BigTwoGame game; // the rules of the game, applied to the list of players
     private int playerID; // an integer specifying the player index of the local player
     private String playerName; // a string specifying the name of the local player
     private String serverIP; // a string specifying the IP address of the game server
     private int serverPort; // an integer specifying the TCP port of the game server
-    private Socket sock; // a socket connection to the game server
-    private ObjectOutputStream oos; // an ObjectOutputStream for sending messages to the server
-    private int currentIdx; // the index of the current player
+    private SocketConnection connection; // a connection for sending and receiving messages
     private BigTwoTable table; // a Big Two table which builds the GUI for the game and handles all user actions.
     private boolean connected = false; // a boolean value indicating the connection status
+    private static final long REVIEW_NANOS = 1_000_000_000L; // the time budget of solving a position of the review
+    private final ArrayList<BigTwoState> endgameStates = new ArrayList<BigTwoState>(); // the positions of the endgame
+    private final ArrayList<Long> endgameMoves = new ArrayList<Long>(); // the moves made in those positions
+    private CardInference inference = null; // what the local player can tell about the opponents' cards
 
     /**
      * A constructor for creating a Big Two card game.
@@ -31,10 +32,10 @@ public class BigTwoClient implements CardGame, NetworkGame {
         for (int i = 0; i < 4; i++) {
             playerList.add(new CardGamePlayer());
         }
+        game = new BigTwoGame(playerList);
         // create a BigTwoTable for GUI and user actions
         table = new BigTwoTable(this);
 
-        handsOnTable = new ArrayList<Hand>();
         serverPort = 2396;
 
         // make a connection to the game server
@@ -61,7 +62,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      *  A method for retrieving the deck of cards being used.
      * @return the deck of cards being used
      */
-    public Deck getDeck() {return deck;}
+    public Deck getDeck() {return game.getDeck();}
 
     /**
      * A method for retrieving the list of players.
@@ -73,13 +74,19 @@ public class BigTwoClient implements CardGame, NetworkGame {
      * A method for retrieving the list of hands played on the table.
      * @return the list of hands played on the table
      */
-    public ArrayList<Hand> getHandsOnTable() {return handsOnTable;}
+    public ArrayList<Hand> getHandsOnTable() {return game.getHandsOnTable();}
+
+    /**
+     * A method for retrieving what the local player can tell about the opponents' cards from their moves.
+     * @return the knowledge of the local player, or null if no game has started
+     */
+    public CardInference getInference() {return inference;}
 
     /**
      *  A method for retrieving the index of the current player.
      * @return the index of the current player
      */
-    public int getCurrentIdx() {return currentIdx;}
+    public int getCurrentIdx() {return game.getCurrentIdx();}
 
     /**
      * A method for starting the game with a (shuffled) deck of cards supplied as the argument. It implements the Big Two game logics.
@@ -87,29 +94,18 @@ public class BigTwoClient implements CardGame, NetworkGame {
      * 		a shuffled deck of cards
      */
     public void start(Deck deck) {
-        this.deck = deck;
-        // remove all the cards from the players as well as from the table
-        for (CardGamePlayer p : playerList) {
-            p.removeAllCards();
-        }
-        handsOnTable = new ArrayList<Hand>();
-
-        // distribute the cards to the players
-        for (int i = 0; i < this.deck.size(); i++) {
-            playerList.get(i/13).addCard(getDeck().getCard(i));
-        }
-
-        // identify the player who holds the 3 of Diamonds
-        // and set the activePlayer to the playerID
-        for (int i = 0; i < playerList.size(); i++) {
-            playerList.get(i).sortCardsInHand();
-            if (playerList.get(i).getCardsInHand().contains(new BigTwoCard(0, 2))) {
-                currentIdx = i;
-                table.setActivePlayer(playerID); // only show cards of the local player
-            }
+        // deal the cards and find the player who holds the 3 of Diamonds
+        game.start(deck);
+        endgameStates.clear();
+        endgameMoves.clear();
+        inference = new CardInference(playerID, playerList.get(playerID).getCardSet().getMask());
+        if (deck.getSeed() != null) {
+            // the server sent the seed of the deal, which may be used to replay the game
+            table.printMsg("Deal seed: " + deck.getSeed());
         }
+        table.setActivePlayer(playerID); // only show cards of the local player
         table.repaint();
-        table.printMsg(playerList.get(currentIdx).getName() + "'s turn: ");
+        table.printMsg(playerList.get(getCurrentIdx()).getName() + "'s turn: ");
     }
 
     /**
@@ -129,81 +125,93 @@ public class BigTwoClient implements CardGame, NetworkGame {
      */
     @Override
     public void checkMove(int playerID, int[] cardIdx) {
-        // form a hand
-        CardList cardsSelected = new CardList();
-        CardGamePlayer currentPlayer = playerList.get(playerID);
-        for (int i = 0; cardIdx.length != 0 && i < cardIdx.length; i++) {
-            cardsSelected.addCard(playerList.get(getCurrentIdx()).getCardsInHand().getCard(cardIdx[i]));
+        long move = game.toMove(playerID, cardIdx);
+        if (move != BigTwoGame.ILLEGAL_MOVE && game.isLegalMove(playerID, move)) {
+            applyMove(playerID, move);
+        } else {
+            rejectMove();
+            table.repaint();
         }
-        // check if is legal move
-        boolean isLegalMove = false;
-        if (handsOnTable.size() == 0) {
-            // first player
-            if (cardsSelected.contains(new BigTwoCard(0, 2)) &&
-                    composeHand(currentPlayer, cardsSelected) != null) {
-                isLegalMove = true;
-            }
+    }
+
+    /**
+     * A method for applying a move which has already been validated by the game server.
+     * @param playerID the playerID of the player who makes the move
+     * @param move the mask of the cards played, as in a CardSet, or 0 for a pass
+     */
+    public void applyMove(int playerID, long move) {
+        BigTwoState before = new BigTwoState(game);
+        if (before.getNumOfCardsLeft() <= BigTwoSolver.ENDGAME_CARDS) {
+            endgameStates.add(before);
+            endgameMoves.add(move);
+        }
+        Hand hand = game.applyMove(playerID, move);
+        inference.apply(playerID, move);
+        if (hand != null) {
+            table.printMsg("{" + hand.getType() + "} ");
+            table.printMsg(hand.toString());
         } else {
-            // not the first player
-            if (cardIdx.length != 0) {
-                if ((composeHand(currentPlayer, cardsSelected) != null) &&
-                        (handsOnTable.get(handsOnTable.size()-1).getPlayer() == currentPlayer ||
-                                composeHand(currentPlayer, cardsSelected).beats(handsOnTable.get(handsOnTable.size()-1)))) {
-                    isLegalMove = true;
-                }
-            } else {
-                if (handsOnTable.get(handsOnTable.size()-1).getPlayer() != currentPlayer) {
-                    // PASS
-                    isLegalMove = true;
-                }
-            }
+            table.printMsg("{Pass}");
         }
-        //  remove from player, add to table
-        if (isLegalMove) {
-            if (cardIdx.length != 0) {
-                currentPlayer.removeCards(cardsSelected);
-                handsOnTable.add(composeHand(currentPlayer, cardsSelected));
-                table.printMsg("{" + handsOnTable.get(handsOnTable.size() - 1).getType() + "} ");
-                table.printMsg(handsOnTable.get(handsOnTable.size()-1).toString());
-            } else {
-                table.printMsg("{Pass}");
-            }
 
-            if (endOfGame()) {
-                // if end of game, disable GUI and display the result
-                table.repaint();
-                table.disable();
-                table.paintEndOfGame();
-            } else {
-                // if not end of game, next player
-                currentIdx = (getCurrentIdx() + 1) % 4;
-                table.printMsg(playerList.get(currentIdx).getName() + "'s turn:");
-            }
+        if (endOfGame()) {
+            // if end of game, disable GUI and display the result
+            table.repaint();
+            table.disable();
+            table.paintEndOfGame();
+            review();
         } else {
-            // if not legal move
-            // display message
-            // new input
-            table.printMsg("Not a legal move!!!");
-            table.resetSelected();
+            table.printMsg(playerList.get(getCurrentIdx()).getName() + "'s turn:");
         }
         table.repaint();
     }
 
+    /**
+     * A method for reviewing the endgame of the game which has just ended, on a background thread. As
+     * every hand is known after the game, each position of the endgame is solved, and the moves which
+     * threw a forced win away are shown with a winning move.
+     */
+    private void review() {
+        ArrayList<BigTwoState> states = new ArrayList<BigTwoState>(endgameStates);
+        ArrayList<Long> moves = new ArrayList<Long>(endgameMoves);
+        Thread reviewer = new Thread(() -> {
+            BigTwoSolver solver = new BigTwoSolver(18);
+            int numOfMistakes = 0;
+            for (int i = 0; i < states.size(); i++) {
+                BigTwoState state = states.get(i);
+                long move = moves.get(i);
+                long best = solver.solve(state, REVIEW_NANOS);
+                if (solver.getValue() > 0 && best != move && solver.evaluate(state, move, REVIEW_NANOS) < 0) {
+                    numOfMistakes++;
+                    table.printMsg("Review: " + playerList.get(state.getCurrentIdx()).getName()
+                            + " could have forced a win with " + new CardSet(best) + " instead of "
+                            + (move == MoveGenerator.PASS ? "passing" : new CardSet(move).toString()) + ".");
+                }
+            }
+            if (numOfMistakes == 0) {
+                table.printMsg("Review: no forced win was missed in the endgame.");
+            }
+        }, "Review");
+        reviewer.setDaemon(true);
+        reviewer.start();
+    }
+
+    /**
+     * A method for telling the local player that the move is not legal.
+     */
+    private void rejectMove() {
+        // display message
+        // new input
+        table.printMsg("Not a legal move!!!");
+        table.resetSelected();
+    }
+
     /**
      *  A method for checking if the game ends.
      * @return true if the game ends
      */
     public boolean endOfGame() {
-        if (numOfPlayers == 4 && !(playerList.get(0).getCardsInHand().size() == 0
-                && playerList.get(1).getCardsInHand().size() == 0
-                && playerList.get(2).getCardsInHand().size() == 0
-                && playerList.get(3).getCardsInHand().size() == 0)) {
-            return playerList.get(0).getCardsInHand().size() == 0
-                    || playerList.get(1).getCardsInHand().size() == 0
-                    || playerList.get(2).getCardsInHand().size() == 0
-                    || playerList.get(3).getCardsInHand().size() == 0;
-        }
-        return false;
+        return numOfPlayers == 4 && game.endOfGame();
     }
 
     /**
@@ -213,47 +221,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
      * @return a valid hand or null if no valid hand can be composed
      */
     public static Hand composeHand(CardGamePlayer player, CardList cards) {
-        if (cards.size() == 1) {
-            Single single = new Single(player, cards);
-            if (single.isValid()) {
-                return single;
-            }
-        }
-        if (cards.size() == 2) {
-            Pair pair = new Pair(player, cards);
-            if (pair.isValid()) {
-                return pair;
-            }
-        }
-        if (cards.size() == 3) {
-            Triple triple = new Triple(player ,cards);
-            if (triple.isValid()) {
-                return triple;
-            }
-        }
-        if (cards.size() == 5) {
-            Quad quad = new Quad(player, cards);
-            if (quad.isValid()) {
-                return quad;
-            }
-            FullHouse fullHouse = new FullHouse(player, cards);
-            if (fullHouse.isValid()) {
-                return fullHouse;
-            }
-            StraightFlush straightFlush = new StraightFlush(player, cards);
-            if (straightFlush.isValid()) {
-                return straightFlush;
-            }
-            Straight straight = new Straight(player, cards);
-            if (straight.isValid()) {
-                return straight;
-            }
-            Flush flush = new Flush(player, cards);
-            if (flush.isValid()) {
-                return flush;
-            }
-        }
-        return null;
+        return BigTwoGame.composeHand(player, cards);
     }
 
     /**
@@ -335,23 +303,17 @@ public class BigTwoClient implements CardGame, NetworkGame {
     public void makeConnection() {
         table.inputNameAndIP();
 
-        // make a socket connection with the game server
-        try {
-            sock = new Socket(serverIP, serverPort);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        // create an ObjectOutputStream for sending messages to the game server
+        // make a connection with the game server, negotiating the protocol selected by the system
+        // property "bigtwo.protocol": "binary" (the default), "serialized" or "object"; a server
+        // which does not support the protocol is used with an ObjectOutputStream
         try {
-            oos = new ObjectOutputStream(sock.getOutputStream());
+            connection = SocketConnection.open(serverIP, serverPort, createCodec(System.getProperty(PROTOCOL, "binary")));
         } catch (IOException e) {
             e.printStackTrace();
         }
 
         // create a thread for receiving messages from the game server
-        Thread receiveThread = new Thread(new ServerHandler());
-        receiveThread.start();
+        HandlerThreads.start(new ServerHandler());
 
         // send a message of the type JOIN to the game server
         sendMessage(new CardGameMessage(1, -1, playerName));
@@ -362,6 +324,22 @@ public class BigTwoClient implements CardGame, NetworkGame {
         connected = true;
     }
 
+    /**
+     * A method for creating the codec for the specified protocol.
+     * @param protocol the name of the protocol: "binary", "serialized" or "object"
+     * @return the codec of the protocol, or null for a plain ObjectOutputStream
+     */
+    private static MessageCodec createCodec(String protocol) {
+        switch (protocol) {
+            case "binary":
+                return new BinaryCodec();
+            case "serialized":
+                return new SerializedCodec();
+            default:
+                return null;
+        }
+    }
+
     /**
      * A method for parsing the messages received from the game server
      * @param message the message received from the game server
@@ -411,8 +389,16 @@ public class BigTwoClient implements CardGame, NetworkGame {
                 start((Deck) message.getData());
                 break;
             case CardGameMessage.MOVE:
-                // check the move made by the specified player
-                checkMove(message.getPlayerID(), (int[]) message.getData());
+                if (message.getData() instanceof Long) {
+                    // the move has been validated by the server
+                    applyMove(message.getPlayerID(), (Long) message.getData());
+                } else if (message.getData() == null) {
+                    // the move of the local player has been rejected by the server
+                    rejectMove();
+                } else {
+                    // check the move made by the specified player
+                    checkMove(message.getPlayerID(), (int[]) message.getData());
+                }
                 break;
             case CardGameMessage.MSG:
                 table.printChatMsg((String) message.getData());
@@ -431,7 +417,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
     @Override
     public void sendMessage(GameMessage message) {
         try {
-            oos.writeObject(message);
+            connection.sendMessage((CardGameMessage) message);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -441,27 +427,14 @@ public class BigTwoClient implements CardGame, NetworkGame {
      * A class for receiving and parsing messages from the server.
      */
     class ServerHandler implements Runnable {
-        private ObjectInputStream inputStream;
-
-        /**
-         * The constructor for building a new ServerHandler class
-         */
-        ServerHandler() {
-            try {
-                inputStream = new ObjectInputStream(sock.getInputStream());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
         /**
          * A method for receiving and parsing messages from the server
          */
         @Override
-        public synchronized void run() {
+        public void run() {
             CardGameMessage message;
             try {
-                while ((message = (CardGameMessage) inputStream.readObject()) != null) {
+                while ((message = connection.readMessage()) != null) {
                     parseMessage(message);
                 }
             } catch (Exception e) {
@@ -7,15 +7,13 @@ public class BigTwoDeck extends Deck {
 	/**
 	 * A method for initializing a deck of Big Two cards, 
 	 * which should remove all cards from the deck, 
-	 * create 52 Big Two cards and add them to the deck.
+	 * and add the 52 shared Big Two cards to the deck
+	 * in the bit order of a CardSet.
 	 */
     public void initialize() {
         removeAllCards();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 13; j++) {
-                BigTwoCard bigTwoCard = new BigTwoCard(i, j);
-                addCard(bigTwoCard);
-            }
+        for (int i = 0; i < 52; i++) {
+            addCard(BigTwoCard.of(i));
         }
     }
 }
@@ -0,0 +1,276 @@
+import java.util.ArrayList;
+
+/**
+ * The BigTwoGame class is used to model the rules of a Big Two card game, without a GUI or a
+ * network connection. It deals the cards, keeps track of the current player and the hands
+ * played on the table, and checks every move, so that the client, the server (which validates each
+ * move once) and the simulator share the same rules.
+ * Moves are described by masks of the cards played, as in a CardSet.
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoGame implements CardGame {
+    public static final long ILLEGAL_MOVE = -1L; // returned by playMove() for a move which is not legal
+    private Deck deck; // the deck of cards being used
+    private ArrayList<CardGamePlayer> playerList; // a list of players
+    private ArrayList<Hand> handsOnTable; // a list of hands played on the table
+    private int currentIdx; // the index of the current player
+
+    /**
+     * A constructor for creating a Big Two card game with 4 players.
+     */
+    public BigTwoGame() {
+        this(new ArrayList<CardGamePlayer>());
+        for (int i = 0; i < 4; i++) {
+            playerList.add(new CardGamePlayer("Player " + i));
+        }
+    }
+
+    /**
+     * A constructor for creating a Big Two card game with the specified players, e.g. the players
+     * shown by a client.
+     * @param playerList the list of players, which is used by the game as it is
+     */
+    public BigTwoGame(ArrayList<CardGamePlayer> playerList) {
+        this.playerList = playerList;
+        handsOnTable = new ArrayList<Hand>();
+    }
+
+    /**
+     * A method for getting the number of players.
+     * @return the number of players
+     */
+    public int getNumOfPlayers() {return playerList.size();}
+
+    /**
+     * A method for retrieving the deck of cards being used.
+     * @return the deck of cards being used
+     */
+    public Deck getDeck() {return deck;}
+
+    /**
+     * A method for retrieving the list of players.
+     * @return the list of players
+     */
+    public ArrayList<CardGamePlayer> getPlayerList() {return playerList;}
+
+    /**
+     * A method for retrieving the list of hands played on the table.
+     * @return the list of hands played on the table
+     */
+    public ArrayList<Hand> getHandsOnTable() {return handsOnTable;}
+
+    /**
+     * A method for retrieving the index of the current player.
+     * @return the index of the current player
+     */
+    public int getCurrentIdx() {return currentIdx;}
+
+    /**
+     * A method for starting the game with a (shuffled) deck of cards.
+     * The cards are dealt 13 to each player, and the player holding the 3 of Diamonds plays first.
+     * @param deck a shuffled deck of cards
+     */
+    public void start(Deck deck) {
+        this.deck = deck;
+        for (CardGamePlayer p : playerList) {
+            p.removeAllCards();
+        }
+        handsOnTable = new ArrayList<Hand>();
+
+        for (int i = 0; i < deck.size(); i++) {
+            playerList.get(i / 13).addCard(deck.getCard(i));
+        }
+        for (int i = 0; i < playerList.size(); i++) {
+            playerList.get(i).sortCardsInHand();
+            if (playerList.get(i).getCardSet().contains(0, 2)) {
+                currentIdx = i;
+            }
+        }
+    }
+
+    /**
+     * A method for stopping the game without a winner, e.g. when a player leaves in the middle of it.
+     * The cards are taken back from the players and the table, so no move is legal until the game is
+     * started again.
+     */
+    public void stop() {
+        deck = null;
+        for (CardGamePlayer p : playerList) {
+            p.removeAllCards();
+        }
+        handsOnTable = new ArrayList<Hand>();
+    }
+
+    /**
+     * A method for making a move by a player, which is applied if it is legal.
+     * @param playerID the playerID of the player who makes the move
+     * @param cardIdx the list of the indices of the cards selected by the player
+     */
+    public void makeMove(int playerID, int[] cardIdx) {
+        playMove(playerID, cardIdx);
+    }
+
+    /**
+     * A method for checking a move made by a player, which is applied if it is legal.
+     * @param playerID the playerID of the player who makes the move
+     * @param cardIdx the list of the indices of the cards selected by the player
+     */
+    public void checkMove(int playerID, int[] cardIdx) {
+        playMove(playerID, cardIdx);
+    }
+
+    /**
+     * A method for checking a move made by a player and applying it if it is legal.
+     * @param playerID the playerID of the player who makes the move
+     * @param cardIdx the list of the indices of the cards selected by the player, which is empty for a pass
+     * @return the mask of the cards played (MoveGenerator.PASS for a pass), or ILLEGAL_MOVE
+     */
+    public long playMove(int playerID, int[] cardIdx) {
+        long move = toMove(playerID, cardIdx);
+        if (move == ILLEGAL_MOVE || !isLegalMove(playerID, move)) {
+            return ILLEGAL_MOVE;
+        }
+        applyMove(playerID, move);
+        return move;
+    }
+
+    /**
+     * A method for converting the indices of the cards selected by a player to a move, without
+     * checking if the move is legal.
+     * @param playerID the playerID of the player who selects the cards
+     * @param cardIdx the list of the indices of the cards selected by the player, which is empty for a pass
+     * @return the mask of the cards selected (MoveGenerator.PASS for a pass), or ILLEGAL_MOVE if an
+     *         index is not valid or is repeated
+     */
+    public long toMove(int playerID, int[] cardIdx) {
+        if (playerID < 0 || playerID >= playerList.size() || cardIdx == null) {
+            return ILLEGAL_MOVE;
+        }
+        CardList cardsInHand = playerList.get(playerID).getCardsInHand();
+        long move = 0L;
+        for (int idx : cardIdx) {
+            Card card = cardsInHand.getCard(idx);
+            if (card == null || (move & 1L << CardSet.indexOf(card)) != 0) {
+                return ILLEGAL_MOVE;
+            }
+            move |= 1L << CardSet.indexOf(card);
+        }
+        return move;
+    }
+
+    /**
+     * A method for enumerating the legal moves of the current player into a buffer, without allocating.
+     * @param moves a buffer for the moves, which should hold MoveGenerator.MAX_MOVES moves
+     * @return the number of moves written to the buffer, with MoveGenerator.PASS last if passing is allowed
+     */
+    public int generateMoves(long[] moves) {
+        if (deck == null || endOfGame()) {
+            return 0;
+        }
+        CardGamePlayer player = playerList.get(currentIdx);
+        long hand = player.getCardSet().getMask();
+        if (handsOnTable.isEmpty()) {
+            return MoveGenerator.generate(hand, HandClassifier.INVALID, MoveGenerator.THREE_OF_DIAMONDS, false, moves);
+        }
+        Hand lastHand = handsOnTable.get(handsOnTable.size() - 1);
+        if (lastHand.getPlayer() == player) {
+            return MoveGenerator.generate(hand, HandClassifier.INVALID, 0L, false, moves);
+        }
+        return MoveGenerator.generate(hand, lastHand.getKey(), 0L, true, moves);
+    }
+
+    /**
+     * A method for checking if a move is legal for a player.
+     * @param playerID the playerID of the player who makes the move
+     * @param move the mask of the cards played, or MoveGenerator.PASS
+     * @return true if it is the player's turn, the player holds the cards, and they form a hand
+     *         which may be played now; or if the move is a pass and the player may pass
+     */
+    public boolean isLegalMove(int playerID, long move) {
+        if (playerID != currentIdx || deck == null || endOfGame()) {
+            return false;
+        }
+        CardGamePlayer player = playerList.get(playerID);
+        if ((move & ~player.getCardSet().getMask()) != 0) {
+            return false;
+        }
+        Hand lastHand = handsOnTable.isEmpty() ? null : handsOnTable.get(handsOnTable.size() - 1);
+        if (move == MoveGenerator.PASS) {
+            return lastHand != null && lastHand.getPlayer() != player;
+        }
+        int key = HandClassifier.classify(move);
+        if (key == HandClassifier.INVALID) {
+            return false;
+        }
+        if (lastHand == null) {
+            return (move & MoveGenerator.THREE_OF_DIAMONDS) != 0;
+        }
+        return lastHand.getPlayer() == player || HandClassifier.beats(key, lastHand.getKey());
+    }
+
+    /**
+     * A method for applying a legal move: the cards are moved from the player to the table,
+     * and the turn passes to the next player unless the game ends.
+     * @param playerID the playerID of the player who makes the move
+     * @param move the mask of the cards played, or MoveGenerator.PASS
+     * @return the hand played, or null for a pass
+     */
+    public Hand applyMove(int playerID, long move) {
+        Hand hand = null;
+        if (move != MoveGenerator.PASS) {
+            CardGamePlayer player = playerList.get(playerID);
+            CardList cards = new CardSet(move).toCardList();
+            player.removeCards(cards);
+            hand = composeHand(player, cards);
+            handsOnTable.add(hand);
+        }
+        if (!endOfGame()) {
+            currentIdx = (playerID + 1) % playerList.size();
+        }
+        return hand;
+    }
+
+    /**
+     * A method for checking if the game ends, i.e. a player has played all his/her cards.
+     * @return true if the game ends
+     */
+    public boolean endOfGame() {
+        if (handsOnTable.isEmpty()) {
+            return false;
+        }
+        for (CardGamePlayer p : playerList) {
+            if (p.getNumOfCards() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method for retrieving the winner of the game.
+     * @return the playerID of the player who has played all his/her cards, or -1 if the game has not ended
+     */
+    public int getWinner() {
+        if (!endOfGame()) {
+            return -1;
+        }
+        for (int i = 0; i < playerList.size(); i++) {
+            if (playerList.get(i).getNumOfCards() == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A method for returning a valid hand from the specified list of cards of the player.
+     * @param player the owner of the list of cards (the hand)
+     * @param cards a list of cards that will compose a hand
+     * @return a valid hand or null if no valid hand can be composed
+     */
+    public static Hand composeHand(CardGamePlayer player, CardList cards) {
+        int key = HandClassifier.classify(cards);
+        return HandClassifier.createHand(HandClassifier.getCategory(key), player, cards);
+    }
+}
@@ -0,0 +1,474 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The BigTwoSearch class is used to choose the move of a computer player by determinized Monte Carlo
+ * tree search (information set MCTS). A player only knows its own cards, so each iteration deals the
+ * cards it has not seen to the opponents at random, keeping the number of cards of each opponent,
+ * and plays the game on this guess: down the tree by UCB, counting how often each move was available,
+ * then to the end with random moves on a BigTwoState. The move tried most often is played.
+ * A search stops after a time budget or a number of iterations, whichever comes first. It may run on
+ * several threads, the extra ones from the common fork-join pool, in one of two ways: each thread grows
+ * its own tree and the counts at the roots are added up at the end (root parallelization), or all
+ * threads grow one shared tree (tree parallelization). The counts of a node are atomic, and a visit is
+ * counted on the way down, before the result of the iteration is known, so that it counts as a loss
+ * meanwhile (a virtual loss) and steers the other threads to other moves.
+ * The guesses may follow a CardInference of the player, so that they fit what the moves made so far
+ * tell about the opponents' cards.
+ * When few cards are left, the search first solves some guesses exactly with a BigTwoSolver, and plays
+ * the move which wins the most of them, if any. Several searches may be run at once with the same
+ * object, e.g. by the bots of a table.
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoSearch {
+    private static final double EXPLORATION = 0.7; // the weight of exploration in UCB
+    private static final long EMPTY = -1L; // a key which is never a move, marking a free slot
+    private static final int ENDGAME_GUESSES = 32; // the maximum number of guesses solved in an endgame
+
+    private final long budgetNanos; // the time budget of a search
+    private final int maxIterations; // the maximum number of iterations of a thread
+    private final int numOfThreads; // the number of threads of a search
+    private final boolean sharedTree; // true if the threads grow one tree
+    private final AtomicLong numOfIterations = new AtomicLong(); // the number of iterations of all searches
+    // a solver of the guesses in an endgame which no search is using, or null
+    private final AtomicReference<BigTwoSolver> idleSolver = new AtomicReference<>();
+
+    /**
+     * A constructor for creating a search.
+     * @param budgetNanos the time budget of a search, in nanoseconds
+     * @param maxIterations the maximum number of iterations of each thread
+     * @param numOfThreads the number of threads of a search, at least 1
+     * @param sharedTree true if the threads grow one shared tree, or false if each grows its own tree
+     */
+    public BigTwoSearch(long budgetNanos, int maxIterations, int numOfThreads, boolean sharedTree) {
+        this.budgetNanos = budgetNanos;
+        this.maxIterations = maxIterations;
+        this.numOfThreads = Math.max(1, numOfThreads);
+        this.sharedTree = sharedTree;
+    }
+
+    /**
+     * A method for choosing the move of the current player. Only the cards of the current player, the
+     * number of cards of each opponent and the public state of the table are used.
+     * @param state the state of the game, which is not modified
+     * @param random a source of random numbers
+     * @return the chosen move, or MoveGenerator.PASS if the game has ended
+     */
+    public long chooseMove(BigTwoState state, SplittableRandom random) {
+        return chooseMove(state, null, random);
+    }
+
+    /**
+     * A method for choosing the move of the current player, whose guesses of the opponents' cards are in
+     * line with what he/she can tell from the moves made so far.
+     * @param state the state of the game, which is not modified
+     * @param inference the knowledge of the current player, which is not modified, or null to guess
+     *                  the opponents' cards uniformly
+     * @param random a source of random numbers
+     * @return the chosen move, or MoveGenerator.PASS if the game has ended
+     */
+    public long chooseMove(BigTwoState state, CardInference inference, SplittableRandom random) {
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        int numOfMoves = state.generateMoves(moves);
+        if (numOfMoves <= 1) {
+            return numOfMoves == 0 ? MoveGenerator.PASS : moves[0];
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        if (state.getNumOfCardsLeft() <= BigTwoSolver.ENDGAME_CARDS) {
+            long move = solveGuesses(state, inference, random, moves, numOfMoves, deadline - budgetNanos / 2);
+            if (move != EMPTY) {
+                return move;
+            }
+        }
+
+        Node root = new Node(MoveGenerator.PASS, -1);
+        List<CompletableFuture<Node>> others = new ArrayList<>(numOfThreads - 1);
+        for (int t = 1; t < numOfThreads; t++) {
+            Node tree = sharedTree ? root : new Node(MoveGenerator.PASS, -1);
+            SplittableRandom treeRandom = random.split();
+            // each thread deals from its own copy, as dealing reuses the buffers of the inference
+            CardInference treeInference = inference == null ? null : new CardInference(inference);
+            others.add(CompletableFuture.supplyAsync(() -> grow(tree, state, treeInference, treeRandom, deadline),
+                    ForkJoinPool.commonPool()));
+        }
+        grow(root, state, inference, random, deadline);
+        for (CompletableFuture<Node> other : others) {
+            Node tree = other.join();
+            if (tree != root) {
+                root.merge(tree);
+            }
+        }
+        numOfIterations.addAndGet(root.getVisits());
+
+        long best = moves[0];
+        int bestVisits = -1;
+        Children children = root.children;
+        for (int i = 0; i < children.size; i++) {
+            Node child = children.nodes[i];
+            if (child.getVisits() > bestVisits) {
+                best = child.move;
+                bestVisits = child.getVisits();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A method for choosing a move in an endgame by solving guesses of the opponents' cards: the move
+     * which wins the most guesses is played.
+     * @param state the state of the game, which is not modified
+     * @param inference the knowledge of the current player, or null
+     * @param random a source of random numbers
+     * @param moves the legal moves of the current player
+     * @param numOfMoves the number of legal moves
+     * @param stop the value of System.nanoTime() at which solving stops
+     * @return the chosen move, or EMPTY if no move is sure to win any guess
+     */
+    private long solveGuesses(BigTwoState state, CardInference inference, SplittableRandom random,
+                              long[] moves, int numOfMoves, long stop) {
+        // takes the idle solver, so that no other search uses it meanwhile
+        BigTwoSolver solver = idleSolver.getAndSet(null);
+        if (solver == null) {
+            solver = new BigTwoSolver(16);
+        }
+        int me = state.getCurrentIdx();
+        BigTwoState guess = new BigTwoState();
+        byte[] unseen = new byte[52];
+        int[] wins = new int[numOfMoves];
+        int guesses = 0;
+        for (long now = System.nanoTime(); guesses < ENDGAME_GUESSES && now < stop; now = System.nanoTime()) {
+            guess.copyFrom(state);
+            determinize(guess, me, inference, unseen, random);
+            long move = solver.solve(guess, stop - now);
+            guesses++;
+            if (solver.getValue() > 0) {
+                for (int i = 0; i < numOfMoves; i++) {
+                    if (moves[i] == move) {
+                        wins[i]++;
+                        break;
+                    }
+                }
+            }
+        }
+        idleSolver.set(solver);
+        numOfIterations.addAndGet(guesses);
+        long best = EMPTY;
+        int bestWins = 0;
+        for (int i = 0; i < numOfMoves; i++) {
+            if (wins[i] > bestWins) {
+                best = moves[i];
+                bestWins = wins[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A method for retrieving the number of iterations of all searches so far, over all threads, with
+     * the guesses solved in endgames, e.g. to measure the speed of a search by the difference before
+     * and after it.
+     * @return the number of iterations of all searches
+     */
+    public long getNumOfIterations() {return numOfIterations.get();}
+
+    /**
+     * A method for growing a tree until the deadline or the maximum number of iterations.
+     * @param root the root of the tree, which other threads may be growing too
+     * @param state the state of the game at the root
+     * @param inference the knowledge of the player at the root, or null
+     * @param random a source of random numbers, used by this thread only
+     * @param deadline the value of System.nanoTime() at which the search stops
+     * @return the root of the tree
+     */
+    private Node grow(Node root, BigTwoState state, CardInference inference, SplittableRandom random,
+                      long deadline) {
+        int me = state.getCurrentIdx();
+        BigTwoState guess = new BigTwoState();
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        Node[] path = new Node[256]; // longer than any game
+        byte[] unseen = new byte[52];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            if ((iteration & 15) == 0 && System.nanoTime() >= deadline && iteration > 0) {
+                break;
+            }
+            guess.copyFrom(state);
+            determinize(guess, me, inference, unseen, random);
+
+            // selection and expansion, counting the visits on the way down as virtual losses
+            root.visit();
+            Node node = root;
+            int depth = 0;
+            while (!guess.isOver() && depth < path.length) {
+                int numOfMoves = guess.generateMoves(moves);
+                Node next = node.select(moves, numOfMoves, guess.getCurrentIdx(), random);
+                if (next == null) {
+                    break;
+                }
+                guess.applyMove(next.move);
+                path[depth++] = next;
+                node = next;
+                if (next.visit() == 1) {
+                    break; // a new node, from which a rollout is played
+                }
+            }
+
+            // rollout
+            while (!guess.isOver()) {
+                int numOfMoves = guess.generateMoves(moves);
+                guess.applyMove(moves[random.nextInt(numOfMoves)]);
+            }
+
+            // backpropagation, turning the virtual losses of the winner into wins
+            int winner = guess.getWinner();
+            for (int i = 0; i < depth; i++) {
+                if (path[i].player == winner) {
+                    path[i].win();
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * A method for dealing the cards which the current player has not seen to the opponents at random,
+     * keeping the number of cards of each opponent, and in line with his/her knowledge if any.
+     * @param guess the state whose opponents' hands are replaced
+     * @param me the index of the current player
+     * @param inference the knowledge of the current player, or null
+     * @param unseen a buffer for the unseen cards
+     * @param random a source of random numbers
+     */
+    private static void determinize(BigTwoState guess, int me, CardInference inference, byte[] unseen,
+                                    SplittableRandom random) {
+        if (inference != null) {
+            inference.deal(guess, random, unseen);
+        } else {
+            CardInference.dealUniformly(guess, me, random, unseen);
+        }
+    }
+
+    /**
+     * The Node class is used to model a node of a search tree, reached by a move. Its counts are atomic
+     * and its children are published as immutable snapshots, so several threads may grow a tree
+     * together without locking, except when a child is added.
+     */
+    private static final class Node {
+        private static final long VISIT = 1L << 32; // a visit in the packed counts
+
+        private final long move; // the move which leads to this node
+        private final int player; // the index of the player who makes the move
+        // the number of visits in the high 32 bits and of wins in the low 32 bits, read together
+        private final AtomicLong counts = new AtomicLong();
+        // the number of iterations in which the move was legal
+        private final AtomicInteger availability = new AtomicInteger();
+        private volatile Children children = Children.NONE; // the children of this node
+
+        /**
+         * A constructor for creating a node.
+         * @param move the move which leads to this node
+         * @param player the index of the player who makes the move
+         */
+        private Node(long move, int player) {
+            this.move = move;
+            this.player = player;
+        }
+
+        /**
+         * A method for retrieving the number of iterations through this node.
+         * @return the number of visits
+         */
+        private int getVisits() {return (int) (counts.get() >>> 32);}
+
+        /**
+         * A method for counting a visit, which is a loss until win() is called.
+         * @return the number of visits, including this one
+         */
+        private int visit() {return (int) (counts.addAndGet(VISIT) >>> 32);}
+
+        /**
+         * A method for counting a visit which has been won by the player.
+         */
+        private void win() {counts.incrementAndGet();}
+
+        /**
+         * A method for choosing the child to visit: a random legal move which has no child yet if there
+         * is one, or else the legal child with the highest UCB score. The availability of every legal
+         * child is counted.
+         * @param moves the legal moves in the current guess
+         * @param numOfMoves the number of legal moves
+         * @param player the index of the current player
+         * @param random a source of random numbers
+         * @return the chosen child, or null if there is no legal move
+         */
+        private Node select(long[] moves, int numOfMoves, int player, SplittableRandom random) {
+            Children table = children;
+            int numOfUntried = 0;
+            long untried = EMPTY;
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < numOfMoves; i++) {
+                Node child = table.find(moves[i]);
+                if (child == null) {
+                    // picks one of the untried moves uniformly, by reservoir sampling
+                    if (random.nextInt(++numOfUntried) == 0) {
+                        untried = moves[i];
+                    }
+                } else {
+                    int available = child.availability.incrementAndGet();
+                    long c = child.counts.get();
+                    int visits = (int) (c >>> 32);
+                    // a child added by another thread may not have been visited yet
+                    double score = visits == 0 ? Double.POSITIVE_INFINITY : (double) (int) c / visits
+                            + EXPLORATION * Math.sqrt(Math.log(available) / visits);
+                    if (score > bestScore) {
+                        best = child;
+                        bestScore = score;
+                    }
+                }
+            }
+            if (numOfUntried > 0) {
+                Node child = add(new Node(untried, player));
+                child.availability.incrementAndGet();
+                return child;
+            }
+            return best;
+        }
+
+        /**
+         * A method for adding a child, unless another thread has added a child for the same move.
+         * @param child the child
+         * @return the child for the move
+         */
+        private synchronized Node add(Node child) {
+            Node existing = children.find(child.move);
+            if (existing != null) {
+                return existing;
+            }
+            children = children.plus(child);
+            return child;
+        }
+
+        /**
+         * A method for adding the counts of the children of the root of another tree to this root.
+         * @param other the root of the other tree
+         */
+        private void merge(Node other) {
+            counts.addAndGet(other.counts.get());
+            Children theirChildren = other.children;
+            for (int i = 0; i < theirChildren.size; i++) {
+                Node theirs = theirChildren.nodes[i];
+                Node mine = add(new Node(theirs.move, theirs.player));
+                mine.counts.addAndGet(theirs.counts.get());
+                mine.availability.addAndGet(theirs.availability.get());
+            }
+        }
+    }
+
+    /**
+     * The Children class is used to model the children of a node. A child is added in place, by the thread
+     * holding the lock of the node, and the arrays are replaced by ones twice as large when they are full,
+     * so that adding a child takes constant amortized time. The children are read without locking: a
+     * child is counted in the size only once it is in both arrays, and a reader which misses a child being
+     * added only calls Node.add, which finds it. The children are found by move through an
+     * open-addressing hash table once there are more than 8 of them.
+     */
+    private static final class Children {
+        private static final Children NONE = new Children(0); // no children, full so never modified
+
+        private final Node[] nodes; // the children, in the order they were added
+        // the hash table of the children, holding their indices plus one, or 0 for a free slot, and kept
+        // at most half full
+        private final int[] slots;
+        private volatile int size = 0; // the number of children
+
+        /**
+         * A constructor for creating an empty set of children.
+         * @param capacity the number of children which can be added before the arrays are replaced
+         */
+        private Children(int capacity) {
+            nodes = new Node[capacity];
+            slots = new int[Math.max(1, capacity * 2)];
+        }
+
+        /**
+         * A method for adding a child, which is called while holding the lock of the node.
+         * @param child the new child
+         * @return these children, or a copy with larger arrays if these are full
+         */
+        private Children plus(Node child) {
+            int n = size;
+            if (n < nodes.length) {
+                insert(n, child);
+                size = n + 1;
+                return this;
+            }
+            Children more = new Children(Math.max(4, n * 2));
+            for (int i = 0; i < n; i++) {
+                more.insert(i, nodes[i]);
+            }
+            more.insert(n, child);
+            more.size = n + 1;
+            return more;
+        }
+
+        /**
+         * A method for putting a child in the arrays, without counting it in the size.
+         * @param i the index of the child
+         * @param child the child
+         */
+        private void insert(int i, Node child) {
+            nodes[i] = child;
+            int h = hash(child.move);
+            while (slots[h] != 0) {
+                h = (h + 1) & (slots.length - 1);
+            }
+            slots[h] = i + 1;
+        }
+
+        /**
+         * A method for finding the child reached by a move.
+         * @param key the move
+         * @return the child, or null if there is none
+         */
+        private Node find(long key) {
+            int n = size;
+            if (n <= 8) {
+                for (int i = 0; i < n; i++) {
+                    if (nodes[i].move == key) {
+                        return nodes[i];
+                    }
+                }
+                return null;
+            }
+            for (int h = hash(key); ; h = (h + 1) & (slots.length - 1)) {
+                int slot = slots[h];
+                if (slot == 0) {
+                    return null;
+                }
+                // a child being added by another thread may not be visible yet, and is passed over
+                Node node = nodes[slot - 1];
+                if (node != null && node.move == key) {
+                    return node;
+                }
+            }
+        }
+
+        /**
+         * A method for hashing a move into the hash table.
+         * @param key the move
+         * @return a slot of the hash table
+         */
+        private int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & (slots.length - 1);
+        }
+    }
+}
@@ -1,14 +1,32 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * This class is used to model a Big Two card game server.
  * @author Kenneth Wong
  *
  */
 public class BigTwoServer extends CardGameServer {
+	// the system property selecting the non-blocking server
+	public static final String NIO = "bigtwo.nio";
+	// the system property setting the maximum number of tables
+	public static final String MAX_TABLES = "bigtwo.maxTables";
+
+	// the threads on which the bots think, one per processor
+	private final ExecutorService botThreads = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), task -> {
+				Thread t = new Thread(task, "Bot");
+				t.setDaemon(true);
+				return t;
+			});
+
 	/**
-	 * Creates and returns an instance of the BigTwoServer class.
+	 * Creates and returns an instance of the BigTwoServer class, which hosts
+	 * up to the number of tables given by the system property
+	 * "bigtwo.maxTables" (1000 by default).
 	 */
 	public BigTwoServer() {
-		super("Big Two Server", 4);
+		super("Big Two Server", 4, Integer.getInteger(MAX_TABLES, 1000));
 	}
 	
 	/**
@@ -19,19 +37,101 @@ public class BigTwoServer extends CardGameServer {
 		return new BigTwoDeck(); 
 	}
 	
+	/**
+	 * Creates and returns a bot which plays by Monte Carlo tree search.
+	 * 
+	 * @return a new bot
+	 */
+	protected ClientConnection createBot() {
+		return new BotConnection(this, botThreads);
+	}
+
+	/**
+	 * Creates and returns a table at which the moves are validated.
+	 * 
+	 * @param tableID
+	 *            the index of the new table
+	 * @return a new table
+	 */
+	protected ServerTable createTable(int tableID) {
+		return new GameTable(tableID);
+	}
+
 	/**
 	 * main() method for starting the server.
 	 * 
 	 * @param args
 	 *            the port to be used by the server. The default port 5000 will
-	 *            be used if no arguments has been supplied
+	 *            be used if no arguments has been supplied. The server runs
+	 *            in non-blocking mode if the system property "bigtwo.nio" is
+	 *            "true"
 	 */
 	public static void main(String[] args) {
 		BigTwoServer server = new BigTwoServer();
-		if (args.length > 0) {
-			server.start(Integer.parseInt(args[0]));
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : 2396;
+		if (Boolean.getBoolean(NIO)) {
+			server.startSelector(port);
 		} else {
-			server.start(2396);
+			server.start(port);
 		}
 	} // main
+
+	/**
+	 * This inner class is used to model a table of the server, which keeps
+	 * track of the game played at the table.
+	 */
+	private class GameTable extends ServerTable {
+		// the game being played, which is used to validate the moves
+		private final BigTwoGame game = new BigTwoGame();
+
+		/**
+		 * Creates and returns an instance of the GameTable class.
+		 * 
+		 * @param tableID
+		 *            the index of the table in the server
+		 */
+		public GameTable(int tableID) {
+			super(BigTwoServer.this, tableID, 4);
+		}
+
+		/**
+		 * Starts a new game at this table with the specified deck.
+		 * 
+		 * @param deck
+		 *            the shuffled deck for the new game
+		 */
+		protected void startGame(Deck deck) {
+			game.start(deck);
+		}
+
+		/**
+		 * Ends the game at this table without a winner, so that no move is
+		 * accepted until a new game starts.
+		 */
+		protected void endGame() {
+			game.stop();
+		}
+
+		/**
+		 * Checks a MOVE message against the game at this table, and applies
+		 * the move if it is legal. An accepted move is broadcast with the mask
+		 * of the cards played (0 for a pass) in place of the card indices.
+		 * 
+		 * @param message
+		 *            the MOVE message, with playerID set to the player who
+		 *            makes the move
+		 * @return the message to be broadcast to the players, or null if the
+		 *         move is illegal or out of turn
+		 */
+		protected CardGameMessage checkMove(CardGameMessage message) {
+			if (!(message.getData() instanceof int[])) {
+				return null;
+			}
+			long move = game.playMove(message.getPlayerID(), (int[]) message.getData());
+			if (move == BigTwoGame.ILLEGAL_MOVE) {
+				return null;
+			}
+			return new CardGameMessage(CardGameMessage.MOVE, message.getPlayerID(), move);
+		}
+	} // GameTable
 }
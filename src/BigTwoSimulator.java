@@ -0,0 +1,224 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The BigTwoSimulator class is used to play Big Two card games between computer players without a
+ * GUI or a network connection, e.g. to evaluate strategies and rule changes. The games are split into
+ * chunks which are played in parallel on the common fork-join pool, and the statistics of the chunks
+ * are merged. Each game is shuffled and played with its own random numbers, derived from the seed and
+ * the index of the game, so a run gives the same results with any number of threads.
+ * Run it as "java BigTwoSimulator [games] [seed] [strategy,strategy,strategy,strategy]", where each
+ * strategy is "random", "lowest", "greedy" or "planner".
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoSimulator {
+    private static final int CHUNK_SIZE = 4096; // the number of games played by a task
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // the increment between the seeds of games
+
+    private final BigTwoStrategy[] strategies; // the strategy of each player
+    private final long seed; // the seed of the simulation
+
+    /**
+     * A constructor for creating a simulator.
+     * @param strategies the strategy of each of the 4 players
+     * @param seed the seed of the simulation
+     */
+    public BigTwoSimulator(BigTwoStrategy[] strategies, long seed) {
+        this.strategies = strategies.clone();
+        this.seed = seed;
+    }
+
+    /**
+     * A method for playing the specified number of games in parallel.
+     * @param numOfGames the number of games
+     * @return the statistics of the games
+     */
+    public Stats run(int numOfGames) {
+        int numOfChunks = (numOfGames + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, numOfChunks).parallel()
+                .mapToObj(c -> playChunk(c * CHUNK_SIZE, Math.min(numOfGames, (c + 1) * CHUNK_SIZE)))
+                .reduce(Stats::merge).orElse(new Stats());
+    }
+
+    /**
+     * A method for playing a range of games on the current thread, reusing one game and one deck.
+     * @param from the index of the first game
+     * @param to the index after the last game
+     * @return the statistics of the games
+     */
+    private Stats playChunk(int from, int to) {
+        Stats stats = new Stats();
+        BigTwoGame game = new BigTwoGame();
+        Deck deck = new BigTwoDeck();
+        byte[] cards = new byte[deck.size()];
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        for (int g = from; g < to; g++) {
+            SplittableRandom random = new SplittableRandom(mix64(seed + g * GOLDEN_GAMMA));
+            // deal from a deck in a fixed order, so the deal depends on the random numbers only
+            for (int i = 0; i < cards.length; i++) {
+                cards[i] = (byte) i;
+            }
+            Deck.shuffle(cards, random);
+            for (int i = 0; i < cards.length; i++) {
+                deck.setCard(i, BigTwoCard.of(cards[i]));
+            }
+            game.start(deck);
+            stats.add(game, play(game, moves, random));
+        }
+        return stats;
+    }
+
+    /**
+     * A method for playing a game which has been started until it ends.
+     * @param game the game
+     * @param moves a buffer for the legal moves
+     * @param random the random numbers of the game
+     * @return the number of turns played, including passes
+     */
+    private int play(BigTwoGame game, long[] moves, SplittableRandom random) {
+        int turns = 0;
+        while (!game.endOfGame()) {
+            int playerID = game.getCurrentIdx();
+            int numOfMoves = game.generateMoves(moves);
+            long move = strategies[playerID].chooseMove(game, moves, numOfMoves, random);
+            game.applyMove(playerID, move);
+            turns++;
+        }
+        return turns;
+    }
+
+    /**
+     * A method for turning consecutive seeds into well-spread ones (the finalizer of MurmurHash3).
+     * @param z a seed
+     * @return the mixed seed
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * The Stats class is used to hold the aggregate statistics of simulated games.
+     */
+    public static class Stats {
+        private long numOfGames = 0; // the number of games played
+        private final long[] wins = new long[4]; // the number of games won by each player
+        private long turns = 0; // the total number of turns, including passes
+        private long hands = 0; // the total number of hands played
+        private int maxTurns = 0; // the number of turns of the longest game
+        private final long[] handTypes = new long[8]; // the number of hands played of each category
+        private final long[] cardsLeft = new long[4]; // the number of cards left to each player at the end
+
+        /**
+         * A method for adding a game which has ended.
+         * @param game the game
+         * @param numOfTurns the number of turns played, including passes
+         * @return this object
+         */
+        private Stats add(BigTwoGame game, int numOfTurns) {
+            numOfGames++;
+            wins[game.getWinner()]++;
+            turns += numOfTurns;
+            maxTurns = Math.max(maxTurns, numOfTurns);
+            hands += game.getHandsOnTable().size();
+            for (Hand hand : game.getHandsOnTable()) {
+                handTypes[HandClassifier.getCategory(hand.getKey())]++;
+            }
+            for (int i = 0; i < 4; i++) {
+                cardsLeft[i] += game.getPlayerList().get(i).getNumOfCards();
+            }
+            return this;
+        }
+
+        /**
+         * A method for adding the statistics of other games to these statistics.
+         * @param other the statistics of the other games
+         * @return this object
+         */
+        private Stats merge(Stats other) {
+            numOfGames += other.numOfGames;
+            turns += other.turns;
+            hands += other.hands;
+            maxTurns = Math.max(maxTurns, other.maxTurns);
+            for (int i = 0; i < 4; i++) {
+                wins[i] += other.wins[i];
+                cardsLeft[i] += other.cardsLeft[i];
+            }
+            for (int i = 0; i < handTypes.length; i++) {
+                handTypes[i] += other.handTypes[i];
+            }
+            return this;
+        }
+
+        /**
+         * A method for retrieving the number of games played.
+         * @return the number of games played
+         */
+        public long getNumOfGames() {return numOfGames;}
+
+        /**
+         * A method for retrieving the share of the games won by a player.
+         * @param playerID the playerID of the player
+         * @return the win rate of the player, between 0 and 1
+         */
+        public double getWinRate(int playerID) {return (double) wins[playerID] / numOfGames;}
+
+        /**
+         * A method for retrieving the average number of turns of a game, including passes.
+         * @return the average length of a game
+         */
+        public double getAverageTurns() {return (double) turns / numOfGames;}
+
+        /**
+         * A method for retrieving the share of the hands played which are of a category.
+         * @param category the category, as in HandClassifier
+         * @return the frequency of the category, between 0 and 1
+         */
+        public double getHandTypeFrequency(int category) {return (double) handTypes[category] / hands;}
+
+        /**
+         * A method for printing the statistics.
+         * @param names the names of the strategies of the players
+         */
+        public void print(String[] names) {
+            System.out.printf("%d games, %.2f turns (max %d), %.2f hands per game%n", numOfGames,
+                    getAverageTurns(), maxTurns, (double) hands / numOfGames);
+            for (int i = 0; i < 4; i++) {
+                System.out.printf("player %d %-8s wins %6.2f%%, %5.2f cards left%n", i, names[i],
+                        100 * getWinRate(i), (double) cardsLeft[i] / numOfGames);
+            }
+            for (int i = 0; i < handTypes.length; i++) {
+                System.out.printf("%-16s %6.2f%%%n", HandClassifier.getType(i << 8), 100 * getHandTypeFrequency(i));
+            }
+        }
+    }
+
+    /**
+     * A method for running a simulation.
+     * @param args the number of games (1000000 by default), the seed, and the strategies of the 4
+     *             players separated by commas ("greedy,lowest,random,random" by default)
+     */
+    public static void main(String[] args) {
+        int numOfGames = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2396;
+        String[] names = (args.length > 2 ? args[2] : "greedy,lowest,random,random").split(",");
+        if (names.length != 4) {
+            throw new IllegalArgumentException("4 strategies are needed: " + Arrays.toString(names));
+        }
+        BigTwoStrategy[] strategies = new BigTwoStrategy[4];
+        for (int i = 0; i < 4; i++) {
+            strategies[i] = BigTwoStrategy.forName(names[i]);
+        }
+
+        long start = System.nanoTime();
+        Stats stats = new BigTwoSimulator(strategies, seed).run(numOfGames);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stats.print(names);
+        System.out.printf("%.1f s, %.0f games/s on %d threads%n", seconds, numOfGames / seconds,
+                ForkJoinPool.getCommonPoolParallelism());
+    }
+}
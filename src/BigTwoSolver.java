@@ -0,0 +1,307 @@
+import java.util.SplittableRandom;
+
+/**
+ * The BigTwoSolver class is used to solve the end of a Big Two card game when the hands of all players
+ * are known, e.g. to check after a game whether a player missed a forced win, or to solve the guesses
+ * of a BigTwoSearch. It searches a BigTwoState by alpha-beta with iterative deepening, taking the side
+ * of the player to move at the root against the other three together (the paranoid assumption), so a
+ * position is a forced win, a forced loss, or not decided within the depth searched.
+ * Positions are cached in a transposition table of a fixed size, indexed by Zobrist hashes of the
+ * hands, which are updated with the cards of each move.
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoSolver {
+    public static final int ENDGAME_CARDS = 16; // the number of cards left at which a game is worth solving
+    public static final int WIN = 1000; // the value of a win at the root; a win after n moves is WIN - n
+    private static final int MAX_PLY = 256; // longer than any game
+    private static final int EXACT = 0; // the value of an entry is exact
+    private static final int LOWER = 1; // the value of an entry is a lower bound
+    private static final int UPPER = 2; // the value of an entry is an upper bound
+    private static final long EMPTY_MOVE = -1L; // a move which is never legal, for a missing entry
+    private static final long[] CARD_KEYS = new long[BigTwoState.NUM_OF_PLAYERS * 52]; // Zobrist keys
+
+    static {
+        SplittableRandom random = new SplittableRandom(2396);
+        for (int i = 0; i < CARD_KEYS.length; i++) {
+            CARD_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final long[] keys; // the hashes of the positions in the transposition table
+    private final long[] bestMoves; // the best moves found in the positions
+    private final int[] entries; // the value, the depth and the kind of bound of each entry
+    private final BigTwoState[] states = new BigTwoState[MAX_PLY + 1]; // the state at each ply
+    private final long[][] moves = new long[MAX_PLY][]; // the legal moves at each ply, allocated as needed
+    private int rootPlayer; // the index of the player whose side is taken
+    private long deadline; // the value of System.nanoTime() at which the search stops
+    private boolean aborted; // true if the deadline has passed in the middle of an iteration
+    private long nodes; // the number of positions searched by the last call
+    private int depth; // the depth of the last completed iteration of the last call
+    private int value; // the value found by the last call
+    private long bestMove; // the best move found by the last call
+
+    /**
+     * A constructor for creating a solver.
+     * @param log2Entries the base 2 logarithm of the number of entries of the transposition table, each
+     *                    of which takes 20 bytes
+     */
+    public BigTwoSolver(int log2Entries) {
+        keys = new long[1 << log2Entries];
+        bestMoves = new long[keys.length];
+        entries = new int[keys.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new BigTwoState();
+        }
+    }
+
+    /**
+     * A method for finding the best move of the current player, deepening the search until the game is
+     * solved or the time budget runs out.
+     * @param state the state of the game, which is not modified
+     * @param budgetNanos the time budget, in nanoseconds
+     * @return the best move found, or MoveGenerator.PASS if the game has ended
+     */
+    public long solve(BigTwoState state, long budgetNanos) {
+        rootPlayer = state.getCurrentIdx();
+        states[0].copyFrom(state);
+        deepen(System.nanoTime() + budgetNanos);
+        return bestMove;
+    }
+
+    /**
+     * A method for finding the value of a move of the current player, i.e. the value of the position
+     * after the move for the player who makes it.
+     * @param state the state of the game before the move, which is not modified
+     * @param move a legal move of the current player
+     * @param budgetNanos the time budget, in nanoseconds
+     * @return the value of the move, as getValue()
+     */
+    public int evaluate(BigTwoState state, long move, long budgetNanos) {
+        rootPlayer = state.getCurrentIdx();
+        states[0].copyFrom(state);
+        states[0].applyMove(move);
+        deepen(System.nanoTime() + budgetNanos);
+        return value;
+    }
+
+    /**
+     * A method for retrieving the value found by the last call, for the player whose side was taken.
+     * @return WIN - n for a win after n more moves at the latest, -(WIN - n) for a loss after n more
+     *         moves at the earliest, or 0 if the search did not decide
+     */
+    public int getValue() {return value;}
+
+    /**
+     * A method for checking if the last call decided who wins.
+     * @return true if the value found by the last call is a forced win or a forced loss
+     */
+    public boolean isSolved() {return value != 0;}
+
+    /**
+     * A method for retrieving the number of positions searched by the last call.
+     * @return the number of nodes searched
+     */
+    public long getNodes() {return nodes;}
+
+    /**
+     * A method for retrieving the depth of the last iteration which the last call completed.
+     * @return the depth searched, in moves
+     */
+    public int getDepth() {return depth;}
+
+    /**
+     * A method for searching states[0] to increasing depths until it is solved, every line has been
+     * searched to its end, or the deadline passes.
+     * @param deadline the value of System.nanoTime() at which the search stops
+     */
+    private void deepen(long deadline) {
+        this.deadline = deadline;
+        aborted = false;
+        nodes = 0;
+        depth = 0;
+        value = 0;
+        bestMove = MoveGenerator.PASS;
+        if (states[0].isOver()) {
+            value = states[0].getWinner() == rootPlayer ? WIN : -WIN;
+            return;
+        }
+        long handsHash = 0L;
+        for (int i = 0; i < BigTwoState.NUM_OF_PLAYERS; i++) {
+            for (long m = states[0].getHand(i); m != 0; m &= m - 1) {
+                handsHash ^= CARD_KEYS[i * 52 + Long.numberOfTrailingZeros(m)];
+            }
+        }
+        // a trick takes at most 4 moves and a card, so a game cannot last longer than this
+        int maxDepth = Math.min(MAX_PLY, 4 * states[0].getNumOfCardsLeft());
+        for (int d = 1; d <= maxDepth; d++) {
+            int v = search(0, d, handsHash, -WIN - 1, WIN + 1);
+            if (aborted) {
+                break;
+            }
+            depth = d;
+            value = v;
+            bestMove = bestMoves[index(handsHash ^ turnHash(states[0]))];
+            if (v != 0) {
+                break;
+            }
+        }
+        if (depth == 0) {
+            // not even one move deep, so any legal move is played
+            long[] buffer = movesAt(0);
+            states[0].generateMoves(buffer);
+            bestMove = buffer[0];
+        }
+    }
+
+    /**
+     * A method for searching a position by alpha-beta, for the player whose side is taken where he/she
+     * is to move, and against him/her elsewhere.
+     * @param ply the number of moves from the root
+     * @param remaining the number of moves left to search
+     * @param handsHash the Zobrist hash of the hands
+     * @param alpha the value which the player whose side is taken is already sure of
+     * @param beta the value which the other players are already sure of
+     * @return the value of the position
+     */
+    private int search(int ply, int remaining, long handsHash, int alpha, int beta) {
+        BigTwoState state = states[ply];
+        if (state.isOver()) {
+            return state.getWinner() == rootPlayer ? WIN - ply : -(WIN - ply);
+        }
+        if (remaining == 0) {
+            return 0;
+        }
+        if ((++nodes & 4095) == 0 && System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long hash = handsHash ^ turnHash(state);
+        int slot = index(hash);
+        long hashMove = EMPTY_MOVE;
+        if (keys[slot] == hash) {
+            int entry = entries[slot];
+            hashMove = bestMoves[slot];
+            if ((entry >>> 16 & 0xFF) >= remaining) {
+                int v = fromTable((short) entry, ply);
+                int bound = entry >>> 24;
+                if (bound == EXACT || bound == LOWER && v >= beta || bound == UPPER && v <= alpha) {
+                    return v;
+                }
+            }
+        }
+
+        long[] buffer = movesAt(ply);
+        int numOfMoves = state.generateMoves(buffer);
+        // tries the best move found before first
+        for (int i = 1; i < numOfMoves; i++) {
+            if (buffer[i] == hashMove) {
+                buffer[i] = buffer[0];
+                buffer[0] = hashMove;
+                break;
+            }
+        }
+
+        boolean maximizing = state.getCurrentIdx() == rootPlayer;
+        int player = state.getCurrentIdx();
+        int alpha0 = alpha;
+        int beta0 = beta;
+        int best = maximizing ? -WIN - 1 : WIN + 1;
+        long bestOfNode = buffer[0];
+        BigTwoState child = states[ply + 1];
+        for (int i = 0; i < numOfMoves; i++) {
+            long move = buffer[i];
+            long childHash = handsHash;
+            for (long m = move; m != 0; m &= m - 1) {
+                childHash ^= CARD_KEYS[player * 52 + Long.numberOfTrailingZeros(m)];
+            }
+            child.copyFrom(state);
+            child.applyMove(move);
+            int v = search(ply + 1, remaining - 1, childHash, alpha, beta);
+            if (maximizing ? v > best : v < best) {
+                best = v;
+                bestOfNode = move;
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, v);
+            } else {
+                beta = Math.min(beta, v);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        int bound = best <= alpha0 ? UPPER : best >= beta0 ? LOWER : EXACT;
+        keys[slot] = hash;
+        bestMoves[slot] = bestOfNode;
+        entries[slot] = bound << 24 | remaining << 16 | toTable(best, ply) & 0xFFFF;
+        return best;
+    }
+
+    /**
+     * A method for retrieving the buffer for the legal moves at a ply.
+     * @param ply the number of moves from the root
+     * @return a buffer for MoveGenerator.MAX_MOVES moves
+     */
+    private long[] movesAt(int ply) {
+        if (moves[ply] == null) {
+            moves[ply] = new long[MoveGenerator.MAX_MOVES];
+        }
+        return moves[ply];
+    }
+
+    /**
+     * A method for hashing the part of a state other than the hands: the current player, the hand to
+     * beat, if any, and the player whose side is taken.
+     * @param state the state
+     * @return the hash of the turn
+     */
+    private long turnHash(BigTwoState state) {
+        int current = state.getCurrentIdx();
+        int lastPlayer = state.getLastPlayer();
+        // a player who leads may play anything, whoever led before
+        int lastKey = lastPlayer == current ? HandClassifier.INVALID : state.getLastKey();
+        long z = (long) lastKey << 16 ^ (long) (lastPlayer == current ? 0 : lastPlayer + 1) << 8
+                ^ current << 4 ^ rootPlayer;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * A method for finding the entry of the transposition table of a hash.
+     * @param hash the hash of a position
+     * @return the index of the entry
+     */
+    private int index(long hash) {
+        return (int) (hash >>> 20) & (keys.length - 1);
+    }
+
+    /**
+     * A method for converting a value into the number of moves to the end counted from the position
+     * rather than from the root, as positions are reached at different plies.
+     * @param v the value
+     * @param ply the ply of the position
+     * @return the value to be stored
+     */
+    private static int toTable(int v, int ply) {
+        return v > WIN - MAX_PLY ? v + ply : v < -WIN + MAX_PLY ? v - ply : v;
+    }
+
+    /**
+     * A method for converting a stored value back, as toTable() in reverse.
+     * @param v the stored value
+     * @param ply the ply of the position
+     * @return the value
+     */
+    private static int fromTable(int v, int ply) {
+        return v > WIN - MAX_PLY ? v - ply : v < -WIN + MAX_PLY ? v + ply : v;
+    }
+}
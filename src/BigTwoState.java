@@ -0,0 +1,153 @@
+import java.util.ArrayList;
+
+/**
+ * The BigTwoState class is used to model the state of a Big Two card game with masks of cards only,
+ * as in a CardSet: the hand of each player, the key and the player of the last hand played, and the
+ * current player. Unlike a BigTwoGame, it creates no objects while moves are played, so searches can
+ * copy it and play many moves on it cheaply. It follows the same rules as a BigTwoGame.
+ * @author Zhou Jingran
+ *
+ */
+public class BigTwoState {
+    public static final int NUM_OF_PLAYERS = 4; // the number of players
+    public static final long ALL_CARDS = (1L << 52) - 1; // the mask of the 52 cards
+
+    private final long[] hands = new long[NUM_OF_PLAYERS]; // the masks of the cards held by the players
+    private int currentIdx; // the index of the current player
+    private int lastKey = HandClassifier.INVALID; // the key of the last hand played, or INVALID
+    private int lastPlayer = -1; // the index of the player of the last hand played, or -1
+
+    /**
+     * A constructor for creating an empty state, to be filled by copyFrom() or setHand().
+     */
+    public BigTwoState() {}
+
+    /**
+     * A constructor for creating the state of a game which has been started.
+     * @param game the game
+     */
+    public BigTwoState(BigTwoGame game) {
+        ArrayList<CardGamePlayer> playerList = game.getPlayerList();
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            hands[i] = playerList.get(i).getCardSet().getMask();
+        }
+        currentIdx = game.getCurrentIdx();
+        ArrayList<Hand> handsOnTable = game.getHandsOnTable();
+        if (!handsOnTable.isEmpty()) {
+            Hand lastHand = handsOnTable.get(handsOnTable.size() - 1);
+            lastKey = lastHand.getKey();
+            lastPlayer = playerList.indexOf(lastHand.getPlayer());
+        }
+    }
+
+    /**
+     * A method for copying another state into this state, without allocating.
+     * @param other the state to be copied
+     */
+    public void copyFrom(BigTwoState other) {
+        System.arraycopy(other.hands, 0, hands, 0, NUM_OF_PLAYERS);
+        currentIdx = other.currentIdx;
+        lastKey = other.lastKey;
+        lastPlayer = other.lastPlayer;
+    }
+
+    /**
+     * A method for retrieving the cards held by a player.
+     * @param playerID the index of the player
+     * @return the mask of the cards held by the player
+     */
+    public long getHand(int playerID) {return hands[playerID];}
+
+    /**
+     * A method for replacing the cards held by a player, e.g. to guess the hidden hands of the opponents.
+     * @param playerID the index of the player
+     * @param hand the mask of the cards held by the player
+     */
+    public void setHand(int playerID, long hand) {hands[playerID] = hand;}
+
+    /**
+     * A method for retrieving the number of cards held by a player.
+     * @param playerID the index of the player
+     * @return the number of cards held by the player
+     */
+    public int getNumOfCards(int playerID) {return Long.bitCount(hands[playerID]);}
+
+    /**
+     * A method for retrieving the number of cards held by all players together.
+     * @return the number of cards left in the game
+     */
+    public int getNumOfCardsLeft() {
+        return Long.bitCount(hands[0]) + Long.bitCount(hands[1]) + Long.bitCount(hands[2]) + Long.bitCount(hands[3]);
+    }
+
+    /**
+     * A method for retrieving the index of the current player.
+     * @return the index of the current player
+     */
+    public int getCurrentIdx() {return currentIdx;}
+
+    /**
+     * A method for retrieving the key of the last hand played.
+     * @return the key of the last hand played, or HandClassifier.INVALID if no hand has been played
+     */
+    public int getLastKey() {return lastKey;}
+
+    /**
+     * A method for retrieving the player of the last hand played.
+     * @return the index of the player of the last hand played, or -1 if no hand has been played
+     */
+    public int getLastPlayer() {return lastPlayer;}
+
+    /**
+     * A method for checking if the game ends, i.e. a player has played all his/her cards.
+     * @return true if the game ends
+     */
+    public boolean isOver() {
+        return lastPlayer >= 0 && hands[lastPlayer] == 0;
+    }
+
+    /**
+     * A method for retrieving the winner of the game.
+     * @return the index of the player who has played all his/her cards, or -1 if the game has not ended
+     */
+    public int getWinner() {
+        return isOver() ? lastPlayer : -1;
+    }
+
+    /**
+     * A method for enumerating the legal moves of the current player into a buffer, as
+     * BigTwoGame.generateMoves() does.
+     * @param moves a buffer for the moves, which should hold MoveGenerator.MAX_MOVES moves
+     * @return the number of moves written to the buffer, with MoveGenerator.PASS last if passing is allowed
+     */
+    public int generateMoves(long[] moves) {
+        if (isOver()) {
+            return 0;
+        }
+        long hand = hands[currentIdx];
+        if (lastPlayer < 0) {
+            return MoveGenerator.generate(hand, HandClassifier.INVALID, hand & MoveGenerator.THREE_OF_DIAMONDS, false, moves);
+        }
+        if (lastPlayer == currentIdx) {
+            return MoveGenerator.generate(hand, HandClassifier.INVALID, 0L, false, moves);
+        }
+        return MoveGenerator.generate(hand, lastKey, 0L, true, moves);
+    }
+
+    /**
+     * A method for applying a legal move of the current player: the cards leave the player's hand, and
+     * the turn passes to the next player unless the game ends.
+     * @param move the mask of the cards played, or MoveGenerator.PASS
+     */
+    public void applyMove(long move) {
+        if (move != MoveGenerator.PASS) {
+            hands[currentIdx] &= ~move;
+            lastKey = HandClassifier.classify(move);
+            lastPlayer = currentIdx;
+            if (hands[currentIdx] == 0) {
+                return;
+            }
+        }
+        currentIdx = (currentIdx + 1) % NUM_OF_PLAYERS;
+    }
+}
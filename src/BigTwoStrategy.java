@@ -0,0 +1,92 @@
+import java.util.SplittableRandom;
+
+/**
+ * The BigTwoStrategy interface is used to model a computer player of a Big Two card game, which
+ * chooses one of the legal moves of the current player. Strategies keep no state between moves, so a
+ * single instance may be shared by the threads of a simulation.
+ * @author Zhou Jingran
+ *
+ */
+public interface BigTwoStrategy {
+    /**
+     * A strategy which plays a random legal move.
+     */
+    BigTwoStrategy RANDOM = (game, moves, numOfMoves, random) -> moves[random.nextInt(numOfMoves)];
+
+    /**
+     * A strategy which plays the weakest hand it may play, and passes only if it cannot play.
+     */
+    BigTwoStrategy LOWEST = (game, moves, numOfMoves, random) -> {
+        long best = MoveGenerator.PASS;
+        int bestKey = Integer.MAX_VALUE;
+        for (int i = 0; i < numOfMoves; i++) {
+            if (moves[i] != MoveGenerator.PASS) {
+                int key = HandClassifier.classify(moves[i]);
+                if (key < bestKey) {
+                    best = moves[i];
+                    bestKey = key;
+                }
+            }
+        }
+        return best;
+    };
+
+    /**
+     * A strategy which plays the hand with the most cards, the weakest one among them, and passes only
+     * if it cannot play.
+     */
+    BigTwoStrategy GREEDY = (game, moves, numOfMoves, random) -> {
+        long best = MoveGenerator.PASS;
+        int bestSize = 0;
+        int bestKey = Integer.MAX_VALUE;
+        for (int i = 0; i < numOfMoves; i++) {
+            int size = Long.bitCount(moves[i]);
+            if (size > 0 && size >= bestSize) {
+                int key = HandClassifier.classify(moves[i]);
+                if (size > bestSize || key < bestKey) {
+                    best = moves[i];
+                    bestSize = size;
+                    bestKey = key;
+                }
+            }
+        }
+        return best;
+    };
+
+    /**
+     * A strategy which keeps to a plan of its hand in the fewest turns, as HandPlanner.chooseMove() does.
+     */
+    BigTwoStrategy PLANNER = (game, moves, numOfMoves, random) ->
+            HandPlanner.forThread().chooseMove(game, moves, numOfMoves);
+
+    /**
+     * A method for choosing the move of the current player.
+     * @param game the game, which must not be modified
+     * @param moves the legal moves of the current player, with MoveGenerator.PASS last if passing is allowed
+     * @param numOfMoves the number of legal moves, which is at least 1
+     * @param random a source of random numbers for this game
+     * @return one of the legal moves
+     */
+    long chooseMove(BigTwoGame game, long[] moves, int numOfMoves, SplittableRandom random);
+
+    /**
+     * A method for retrieving a built-in strategy by its name.
+     * @param name the name of the strategy: "random", "lowest", "greedy" or "planner"
+     * @return the strategy
+     * @throws IllegalArgumentException if there is no strategy with this name
+     */
+    static BigTwoStrategy forName(String name) {
+        switch (name) {
+            case "random":
+                return RANDOM;
+            case "lowest":
+                return LOWEST;
+            case "greedy":
+                return GREEDY;
+            case "planner":
+                return PLANNER;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+}
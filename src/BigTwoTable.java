@@ -298,6 +298,7 @@ public class BigTwoTable implements CardGameTable {
     class BigTwoPanel extends JPanel implements MouseListener {
         private int columnSpace = 130; // space between columns
         private int rowSpace = 30; // space between rows
+        private static final long TWOS = 0xFL << 48; // the mask of the four 2s, the highest rank
 
         /**
          * A constructor for registering the class with itself as a MouseListener
@@ -430,6 +431,17 @@ public class BigTwoTable implements CardGameTable {
                 }
             }
 
+            // draw the card counter: the expected number of 2s and the highest likely card of each opponent
+            CardInference inference = client.getInference();
+            for (int i = 0; i < 4 && inference != null; i++) {
+                if (i != activePlayer && inference.getNumOfCards(i) > 0) {
+                    g.drawString(String.format("2s: %.1f", inference.getExpectedNumOfCards(i, TWOS)),
+                            100 + rowSpace * 12 + 85, 60 + columnSpace * i);
+                    g.drawString("Top: " + BigTwoCard.of(inference.getHighestCard(i)),
+                            100 + rowSpace * 12 + 85, 80 + columnSpace * i);
+                }
+            }
+
             g.drawString("Played by", 3, 540);
             ArrayList<Hand> hands = client.getHandsOnTable();
             if (hands != null && hands.size() > 0) {
@@ -0,0 +1,455 @@
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is used to encode card game messages in a compact binary form,
+ * without Java serialization. Each message starts with its type and the
+ * playerID in one byte each, followed by its data:
+ * <ul>
+ * <li>PLAYER_LIST: the number of players, then the name of each player</li>
+ * <li>JOIN, QUIT and MSG: a string</li>
+ * <li>FULL and READY: nothing</li>
+ * <li>START: a tag, then the deal in the most compact form which describes it:
+ * the algorithm and seed of the shuffle of a new deck, which the client replays
+ * (10 bytes); or the rank of the permutation of the 52 cards (29 bytes); or the
+ * number of cards and one byte per card, holding the index of the card as in a
+ * CardSet</li>
+ * <li>MOVE: a tag, then a mask of the cards played as a long (from the
+ * server), or a mask of the indices of the cards selected as a short (from a
+ * client), or nothing for a rejected move</li>
+ * </ul>
+ * A string is sent as a two-byte length (-1 for null) and its UTF-8 bytes. A
+ * deck is decoded as a BigTwoDeck.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class BinaryCodec implements MessageCodec {
+	/**
+	 * The magic number of this codec ("B2B1").
+	 */
+	public static final int MAGIC = 0x42324231;
+
+	// the tags of the data of a START message; a deck sent as a list of cards
+	// starts with its size instead, which is at most 52
+	private static final byte DEAL_SEEDED = (byte) 0x81;
+	private static final byte DEAL_RANKED = (byte) 0x82;
+	// the algorithm of a seeded deal: Deck.shuffle(long) of a new BigTwoDeck
+	private static final byte SHUFFLE_SPLITTABLE = 1;
+	// the number of bytes of the rank of a permutation of 52 cards (52! < 2^226)
+	private static final int RANK_LENGTH = 29;
+
+	// the tags of the data of a MOVE message
+	private static final byte MOVE_REJECTED = 0;
+	private static final byte MOVE_MASK = 1;
+	private static final byte MOVE_INDICES = 2;
+
+	/**
+	 * Returns the magic number which identifies this codec.
+	 * 
+	 * @return the magic number which identifies this codec
+	 */
+	public int getMagic() {
+		return MAGIC;
+	}
+
+	/**
+	 * Encodes the specified message.
+	 * 
+	 * @param message
+	 *            the message to be encoded
+	 * @return the bytes of the encoded message
+	 * @throws IOException
+	 *             if the data of the message does not match its type
+	 */
+	public byte[] encode(CardGameMessage message) throws IOException {
+		Object data = message.getData();
+		ByteBuffer buffer;
+		try {
+			switch (message.getType()) {
+			case CardGameMessage.PLAYER_LIST:
+				String[] names = (String[]) data;
+				byte[][] bytes = new byte[names.length][];
+				int length = 1;
+				for (int i = 0; i < names.length; i++) {
+					bytes[i] = toBytes(names[i]);
+					length += stringLength(bytes[i]);
+				}
+				buffer = header(message, length);
+				buffer.put((byte) names.length);
+				for (byte[] name : bytes) {
+					putString(buffer, name);
+				}
+				break;
+			case CardGameMessage.JOIN:
+			case CardGameMessage.QUIT:
+			case CardGameMessage.MSG:
+				byte[] string = toBytes((String) data);
+				buffer = header(message, stringLength(string));
+				putString(buffer, string);
+				break;
+			case CardGameMessage.FULL:
+			case CardGameMessage.READY:
+				buffer = header(message, 0);
+				break;
+			case CardGameMessage.START:
+				CardList deck = (CardList) data;
+				byte[] cards = new byte[deck.size()];
+				for (int i = 0; i < cards.length; i++) {
+					cards[i] = (byte) CardSet.indexOf(deck.getCard(i));
+				}
+				if (isReplayable(deck, cards)) {
+					buffer = header(message, 10);
+					buffer.put(DEAL_SEEDED);
+					buffer.put(SHUFFLE_SPLITTABLE);
+					buffer.putLong(((Deck) deck).getSeed());
+				} else if (cards.length == 52 && isPermutation(cards)) {
+					buffer = header(message, 1 + RANK_LENGTH);
+					buffer.put(DEAL_RANKED);
+					buffer.put(rank(cards));
+				} else {
+					buffer = header(message, 1 + cards.length);
+					buffer.put((byte) cards.length);
+					buffer.put(cards);
+				}
+				break;
+			case CardGameMessage.MOVE:
+				if (data == null) {
+					buffer = header(message, 1);
+					buffer.put(MOVE_REJECTED);
+				} else if (data instanceof Long) {
+					buffer = header(message, 9);
+					buffer.put(MOVE_MASK);
+					buffer.putLong((Long) data);
+				} else {
+					buffer = header(message, 3);
+					buffer.put(MOVE_INDICES);
+					buffer.putShort((short) toIndexMask((int[]) data));
+				}
+				break;
+			default:
+				throw new IOException("Unknown message type "
+						+ message.getType());
+			}
+		} catch (ClassCastException ex) {
+			throw new IOException("Invalid data for message type "
+					+ message.getType(), ex);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Decodes a message.
+	 * 
+	 * @param data
+	 *            the array holding the encoded message
+	 * @param offset
+	 *            the index of the first byte of the encoded message
+	 * @param length
+	 *            the length of the encoded message
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the bytes are not a valid message
+	 */
+	public CardGameMessage decode(byte[] data, int offset, int length)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+		try {
+			int type = buffer.get();
+			int playerID = buffer.get();
+			Object payload = null;
+			switch (type) {
+			case CardGameMessage.PLAYER_LIST:
+				String[] names = new String[buffer.get() & 0xFF];
+				for (int i = 0; i < names.length; i++) {
+					names[i] = getString(buffer);
+				}
+				payload = names;
+				break;
+			case CardGameMessage.JOIN:
+			case CardGameMessage.QUIT:
+			case CardGameMessage.MSG:
+				payload = getString(buffer);
+				break;
+			case CardGameMessage.FULL:
+			case CardGameMessage.READY:
+				break;
+			case CardGameMessage.START:
+				byte tag = buffer.get();
+				Deck deck = new BigTwoDeck();
+				if (tag == DEAL_SEEDED) {
+					byte algorithm = buffer.get();
+					if (algorithm != SHUFFLE_SPLITTABLE) {
+						throw new IOException("Unknown shuffle " + algorithm);
+					}
+					deck.shuffle(buffer.getLong());
+				} else if (tag == DEAL_RANKED) {
+					byte[] rank = new byte[RANK_LENGTH];
+					buffer.get(rank);
+					byte[] cards = unrank(rank);
+					for (int i = 0; i < cards.length; i++) {
+						deck.setCard(i, BigTwoCard.of(cards[i]));
+					}
+				} else if (tag >= 0 && tag <= 52) {
+					deck.removeAllCards();
+					for (int i = 0; i < tag; i++) {
+						int index = buffer.get();
+						if (index < 0 || index >= 52) {
+							throw new IOException("Invalid card " + index);
+						}
+						deck.addCard(BigTwoCard.of(index));
+					}
+				} else {
+					throw new IOException("Invalid deal tag " + tag);
+				}
+				payload = deck;
+				break;
+			case CardGameMessage.MOVE:
+				byte moveTag = buffer.get();
+				if (moveTag == MOVE_MASK) {
+					payload = buffer.getLong();
+				} else if (moveTag == MOVE_INDICES) {
+					payload = toIndices(buffer.getShort() & 0xFFFF);
+				} else if (moveTag != MOVE_REJECTED) {
+					throw new IOException("Invalid move tag " + moveTag);
+				}
+				break;
+			default:
+				throw new IOException("Unknown message type " + type);
+			}
+			if (buffer.hasRemaining()) {
+				throw new IOException("Extra bytes after message type " + type);
+			}
+			return new CardGameMessage(type, playerID, payload);
+		} catch (BufferUnderflowException | IllegalArgumentException ex) {
+			throw new IOException("Truncated or invalid message", ex);
+		}
+	}
+
+	/**
+	 * Creates a buffer for a message and writes its type and playerID.
+	 * 
+	 * @param message
+	 *            the message to be encoded
+	 * @param dataLength
+	 *            the number of bytes of the data of the message
+	 * @return a buffer positioned after the header
+	 */
+	private static ByteBuffer header(CardGameMessage message, int dataLength) {
+		ByteBuffer buffer = ByteBuffer.allocate(2 + dataLength);
+		buffer.put((byte) message.getType());
+		buffer.put((byte) message.getPlayerID());
+		return buffer;
+	}
+
+	/**
+	 * Converts a string to UTF-8 bytes.
+	 * 
+	 * @param string
+	 *            the string, which may be null
+	 * @return the UTF-8 bytes of the string, or null
+	 * @throws IOException
+	 *             if the string is too long
+	 */
+	private static byte[] toBytes(String string) throws IOException {
+		if (string == null) {
+			return null;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IOException("String too long: " + bytes.length);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of bytes taken by an encoded string.
+	 * 
+	 * @param bytes
+	 *            the UTF-8 bytes of the string, or null
+	 * @return the number of bytes taken by the string
+	 */
+	private static int stringLength(byte[] bytes) {
+		return 2 + (bytes == null ? 0 : bytes.length);
+	}
+
+	/**
+	 * Writes a string to a buffer.
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param bytes
+	 *            the UTF-8 bytes of the string, or null
+	 */
+	private static void putString(ByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putShort((short) -1);
+		} else {
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+	}
+
+	/**
+	 * Reads a string from a buffer.
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @return the string, which may be null
+	 * @throws IOException
+	 *             if the length of the string is invalid or longer than the
+	 *             bytes left in the message
+	 */
+	private static String getString(ByteBuffer buffer) throws IOException {
+		int length = buffer.getShort();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Invalid string length " + length);
+		}
+		String string = new String(buffer.array(), buffer.arrayOffset()
+				+ buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+
+	/**
+	 * Converts the indices of the cards selected by a player to a mask.
+	 * 
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected
+	 * @return a mask with one bit set for each index
+	 * @throws IOException
+	 *             if an index does not fit in the mask
+	 */
+	private static int toIndexMask(int[] cardIdx) throws IOException {
+		int mask = 0;
+		for (int idx : cardIdx) {
+			if (idx < 0 || idx >= 16) {
+				throw new IOException("Invalid card index " + idx);
+			}
+			mask |= 1 << idx;
+		}
+		return mask;
+	}
+
+	/**
+	 * Converts a mask of the indices of the cards selected by a player to a
+	 * list of indices.
+	 * 
+	 * @param mask
+	 *            a mask with one bit set for each index
+	 * @return the list of the indices, in ascending order
+	 */
+	private static int[] toIndices(int mask) {
+		int[] cardIdx = new int[Integer.bitCount(mask)];
+		for (int i = 0; mask != 0; i++, mask &= mask - 1) {
+			cardIdx[i] = Integer.numberOfTrailingZeros(mask);
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * Checks if a deck can be sent as its seed, i.e. it is a new deck of Big
+	 * Two cards shuffled with Deck.shuffle(long) and not changed since.
+	 * 
+	 * @param deck
+	 *            the deck
+	 * @param cards
+	 *            the indices of the cards of the deck
+	 * @return true if replaying the shuffle gives the same deck
+	 */
+	private static boolean isReplayable(CardList deck, byte[] cards) {
+		if (!(deck instanceof Deck) || ((Deck) deck).getSeed() == null
+				|| cards.length != 52) {
+			return false;
+		}
+		Deck replay = new BigTwoDeck();
+		replay.shuffle(((Deck) deck).getSeed());
+		for (int i = 0; i < cards.length; i++) {
+			if (replay.getCard(i) != BigTwoCard.of(cards[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the indices of the cards of a deck are all different.
+	 * 
+	 * @param cards
+	 *            the indices of the cards, between 0 and 51
+	 * @return true if no card appears twice
+	 */
+	private static boolean isPermutation(byte[] cards) {
+		long seen = 0L;
+		for (byte card : cards) {
+			seen |= 1L << card;
+		}
+		return Long.bitCount(seen) == cards.length;
+	}
+
+	/**
+	 * Computes the rank of a permutation of the 52 cards, from its Lehmer code:
+	 * the digit of each position is the number of cards not yet placed which
+	 * are lower than the card at the position.
+	 * 
+	 * @param cards
+	 *            the indices of the 52 cards, in the order of the deck
+	 * @return the rank as RANK_LENGTH big-endian bytes
+	 */
+	private static byte[] rank(byte[] cards) {
+		long remaining = (1L << 52) - 1;
+		BigInteger rank = BigInteger.ZERO;
+		for (int i = 0; i < cards.length; i++) {
+			long below = remaining & ((1L << cards[i]) - 1);
+			rank = rank.multiply(BigInteger.valueOf(cards.length - i)).add(
+					BigInteger.valueOf(Long.bitCount(below)));
+			remaining &= ~(1L << cards[i]);
+		}
+		byte[] bytes = rank.toByteArray();
+		byte[] fixed = new byte[RANK_LENGTH];
+		int length = Math.min(bytes.length, RANK_LENGTH);
+		System.arraycopy(bytes, bytes.length - length, fixed, RANK_LENGTH
+				- length, length);
+		return fixed;
+	}
+
+	/**
+	 * Computes the permutation of the 52 cards with the specified rank.
+	 * 
+	 * @param bytes
+	 *            the rank as RANK_LENGTH big-endian bytes
+	 * @return the indices of the 52 cards, in the order of the deck
+	 * @throws IOException
+	 *             if the rank is not below 52!
+	 */
+	private static byte[] unrank(byte[] bytes) throws IOException {
+		BigInteger rank = new BigInteger(1, bytes);
+		int[] digits = new int[52];
+		for (int i = 51; i >= 0; i--) {
+			BigInteger[] qr = rank.divideAndRemainder(BigInteger
+					.valueOf(52 - i));
+			digits[i] = qr[1].intValue();
+			rank = qr[0];
+		}
+		if (rank.signum() != 0) {
+			throw new IOException("Invalid permutation rank");
+		}
+		byte[] cards = new byte[52];
+		long remaining = (1L << 52) - 1;
+		for (int i = 0; i < cards.length; i++) {
+			long m = remaining;
+			for (int d = 0; d < digits[i]; d++) {
+				m &= m - 1;
+			}
+			cards[i] = (byte) Long.numberOfTrailingZeros(m);
+			remaining &= ~(m & -m);
+		}
+		return cards;
+	}
+}
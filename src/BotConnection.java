@@ -0,0 +1,356 @@
+import java.net.SocketAddress;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is used to seat a computer player at a table of a Big Two server
+ * as if it were a client. The messages broadcast to the bot update its own copy
+ * of the game, and on its turn the bot chooses a move with a BigTwoSearch on a
+ * thread of the executor. It only uses its own cards, the public state of the
+ * table, and what a CardInference tells about the other players' cards from
+ * their moves. Its JOIN, READY and MOVE messages are passed to the server from
+ * the executor too, never from the thread broadcasting to the table.
+ * <p>
+ * The search is set by the system properties "bigtwo.botMillis" (the time
+ * budget of a move, 20 milliseconds by default), "bigtwo.botIterations" (the
+ * maximum number of iterations of a thread, 2000 by default),
+ * "bigtwo.botThreads" (the number of threads of a search, 1 by default) and
+ * "bigtwo.botSharedTree" (true if the threads grow one shared tree rather
+ * than a tree each, false by default). A bot may also be given a search of
+ * its own.
+ * <p>
+ * For casual seats, the system property "bigtwo.botStrategy" names a
+ * BigTwoStrategy ("planner", "greedy", "lowest" or "random") which the bots
+ * play instead of searching. A strategy chooses in microseconds, so it runs
+ * at once on the thread broadcasting to the table.
+ *
+ * @author Zhou Jingran
+ *
+ */
+public class BotConnection implements ClientConnection {
+	/**
+	 * The system property setting the time budget of a move in milliseconds.
+	 */
+	public static final String MILLIS = "bigtwo.botMillis";
+	/**
+	 * The system property setting the maximum number of iterations of a
+	 * thread of a search.
+	 */
+	public static final String ITERATIONS = "bigtwo.botIterations";
+	/**
+	 * The system property setting the number of threads of a search.
+	 */
+	public static final String THREADS = "bigtwo.botThreads";
+	/**
+	 * The system property which makes the threads of a search grow one shared
+	 * tree.
+	 */
+	public static final String SHARED_TREE = "bigtwo.botSharedTree";
+	/**
+	 * The system property naming the strategy which the bots play instead of
+	 * searching.
+	 */
+	public static final String STRATEGY = "bigtwo.botStrategy";
+
+	// the number of bots created, used to name them
+	private static final AtomicInteger numOfBots = new AtomicInteger();
+	// a buffer for the legal moves of the bots playing a strategy on a thread
+	private static final ThreadLocal<long[]> moves = ThreadLocal
+			.withInitial(() -> new long[MoveGenerator.MAX_MOVES]);
+
+	// the server hosting the table of the bot
+	private final CardGameServer server;
+	// the threads on which the bot thinks and sends its messages
+	private final Executor executor;
+	// the search choosing the moves of the bot, or null if it plays a strategy
+	private final BigTwoSearch search;
+	// the strategy choosing the moves of the bot, or null if it searches
+	private final BigTwoStrategy strategy;
+	// the name of the bot
+	private final String name;
+	// the address shown for the bot in the log and in QUIT messages
+	private final SocketAddress address;
+	// the random numbers of the bot
+	private final SplittableRandom random = new SplittableRandom();
+	// the copy of the game at the table, updated under the lock of the table
+	private final BigTwoGame game = new BigTwoGame();
+	// what the bot can tell about the cards of the other players
+	private CardInference inference = null;
+	// the playerID of the bot
+	private int playerID = -1;
+	// a boolean indicating if a game is being played
+	private boolean playing = false;
+	// the number of moves seen, so that a decision made too late is dropped
+	private volatile int turn = 0;
+	// a boolean indicating if the bot has left the table
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates and returns an instance of the BotConnection class, with the
+	 * search or the strategy set by the system properties.
+	 *
+	 * @param server
+	 *            the server hosting the table of the bot
+	 * @param executor
+	 *            the threads on which the bot thinks and sends its messages
+	 */
+	public BotConnection(CardGameServer server, Executor executor) {
+		this(server, executor, System.getProperty(STRATEGY) != null ? null
+				: new BigTwoSearch(Integer.getInteger(MILLIS, 20) * 1000000L,
+						Integer.getInteger(ITERATIONS, 2000),
+						Integer.getInteger(THREADS, 1),
+						Boolean.getBoolean(SHARED_TREE)),
+				System.getProperty(STRATEGY) == null ? null
+						: BigTwoStrategy.forName(System.getProperty(STRATEGY)));
+	}
+
+	/**
+	 * Creates and returns an instance of the BotConnection class which
+	 * searches for its moves.
+	 *
+	 * @param server
+	 *            the server hosting the table of the bot
+	 * @param executor
+	 *            the threads on which the bot thinks and sends its messages
+	 * @param search
+	 *            the search choosing the moves of the bot
+	 */
+	public BotConnection(CardGameServer server, Executor executor,
+			BigTwoSearch search) {
+		this(server, executor, search, null);
+	}
+
+	/**
+	 * Creates and returns an instance of the BotConnection class which plays
+	 * a strategy.
+	 *
+	 * @param server
+	 *            the server hosting the table of the bot
+	 * @param executor
+	 *            the threads on which the bot sends its messages
+	 * @param strategy
+	 *            the strategy choosing the moves of the bot
+	 */
+	public BotConnection(CardGameServer server, Executor executor,
+			BigTwoStrategy strategy) {
+		this(server, executor, null, strategy);
+	}
+
+	/**
+	 * Creates and returns an instance of the BotConnection class.
+	 *
+	 * @param server
+	 *            the server hosting the table of the bot
+	 * @param executor
+	 *            the threads on which the bot thinks and sends its messages
+	 * @param search
+	 *            the search choosing the moves of the bot, or null
+	 * @param strategy
+	 *            the strategy choosing the moves of the bot, or null
+	 */
+	private BotConnection(CardGameServer server, Executor executor,
+			BigTwoSearch search, BigTwoStrategy strategy) {
+		this.server = server;
+		this.executor = executor;
+		this.search = search;
+		this.strategy = strategy;
+		int id = numOfBots.incrementAndGet();
+		this.name = "Bot " + id;
+		this.address = new BotAddress("bot-" + id);
+	}
+
+	/**
+	 * Handles a message sent to the bot, which is called by the table while
+	 * it holds its lock.
+	 *
+	 * @param message
+	 *            the message
+	 */
+	public void sendMessage(CardGameMessage message) {
+		if (closed) {
+			return;
+		}
+		switch (message.getType()) {
+		case CardGameMessage.PLAYER_LIST:
+			playerID = message.getPlayerID();
+			send(new CardGameMessage(CardGameMessage.JOIN, -1, name),
+					new CardGameMessage(CardGameMessage.READY, -1, null));
+			break;
+		case CardGameMessage.START:
+			game.start((Deck) message.getData());
+			inference = new CardInference(playerID, game.getPlayerList()
+					.get(playerID).getCardSet().getMask());
+			playing = true;
+			turn++;
+			think();
+			break;
+		case CardGameMessage.MOVE:
+			if (playing && message.getData() instanceof Long) {
+				game.applyMove(message.getPlayerID(), (Long) message.getData());
+				inference.apply(message.getPlayerID(), (Long) message.getData());
+				turn++;
+				if (game.endOfGame()) {
+					// ready for the next game, as a client is after showing
+					// the result
+					playing = false;
+					send(new CardGameMessage(CardGameMessage.READY, -1, null));
+				} else {
+					think();
+				}
+			}
+			break;
+		case CardGameMessage.QUIT:
+			if (playing) {
+				// the game is stopped, and the players get ready again
+				playing = false;
+				turn++;
+				send(new CardGameMessage(CardGameMessage.READY, -1, null));
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Handles a message broadcast to the table.
+	 *
+	 * @param message
+	 *            the message
+	 */
+	public void sendMessage(SharedMessage message) {
+		sendMessage(message.getMessage());
+	}
+
+	/**
+	 * Returns the address shown for the bot.
+	 *
+	 * @return the address shown for the bot
+	 */
+	public SocketAddress getRemoteSocketAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns whether the messages go over a plain object stream, which is
+	 * never the case, as the bot reads the masks of the moves.
+	 *
+	 * @return false
+	 */
+	public boolean isObjectStream() {
+		return false;
+	}
+
+	/**
+	 * Makes the bot leave, so that it drops its pending decisions.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Starts choosing a move if it is the turn of the bot: at once with a
+	 * strategy, or on a thread of the executor with a search, which works on
+	 * a copy of the state, so the game may go on meanwhile.
+	 */
+	private void think() {
+		if (!playing || game.getCurrentIdx() != playerID) {
+			return;
+		}
+		final int current = turn;
+		if (strategy != null) {
+			long[] buffer = moves.get();
+			long move = strategy.chooseMove(game, buffer,
+					game.generateMoves(buffer), random);
+			final int[] cardIdx = toCardIdx(game.getPlayerList().get(playerID)
+					.getCardSet().getMask(), move);
+			executor.execute(() -> {
+				if (!closed && turn == current) {
+					server.receive(this, new CardGameMessage(
+							CardGameMessage.MOVE, -1, cardIdx));
+				}
+			});
+			return;
+		}
+		final BigTwoState state = new BigTwoState(game);
+		final CardInference knowledge = new CardInference(inference);
+		final int me = playerID;
+		final SplittableRandom moveRandom = random.split();
+		executor.execute(() -> {
+			if (closed || turn != current) {
+				return;
+			}
+			long move = search.chooseMove(state, knowledge, moveRandom);
+			if (!closed && turn == current) {
+				server.receive(this, new CardGameMessage(CardGameMessage.MOVE,
+						-1, toCardIdx(state.getHand(me), move)));
+			}
+		});
+	}
+
+	/**
+	 * Passes messages from the bot to the server, in order, on a thread of the
+	 * executor.
+	 *
+	 * @param messages
+	 *            the messages
+	 */
+	private void send(CardGameMessage... messages) {
+		executor.execute(() -> {
+			for (CardGameMessage message : messages) {
+				if (!closed) {
+					server.receive(this, message);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Converts a move to the indices of the cards in the sorted hand of the
+	 * bot, as a client sends them.
+	 *
+	 * @param hand
+	 *            the mask of the cards of the bot
+	 * @param move
+	 *            the mask of the cards played
+	 * @return the indices of the cards played
+	 */
+	private static int[] toCardIdx(long hand, long move) {
+		int[] cardIdx = new int[Long.bitCount(move)];
+		int count = 0;
+		for (long m = move; m != 0; m &= m - 1) {
+			// a hand is sorted in the order of the bits of its mask
+			cardIdx[count++] = Long.bitCount(hand & ((m & -m) - 1));
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * This inner class is used to show a bot in place of the address of a
+	 * client.
+	 */
+	private static class BotAddress extends SocketAddress {
+		private static final long serialVersionUID = 1L;
+		private final String name; // the name shown for the bot
+
+		/**
+		 * Creates and returns an instance of the BotAddress class.
+		 *
+		 * @param name
+		 *            the name shown for the bot
+		 */
+		public BotAddress(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Returns the name shown for the bot.
+		 *
+		 * @return the name shown for the bot
+		 */
+		public String toString() {
+			return name;
+		}
+	} // BotAddress
+}
@@ -111,6 +111,6 @@ public class Card implements Comparable<Card>, Serializable {
 	 * @return a hash code value for the card
 	 */
 	public int hashCode() {
-		return rank;
+		return rank * 4 + suit;
 	}
 }
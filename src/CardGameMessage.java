@@ -7,10 +7,10 @@
 public class CardGameMessage extends GameMessage {
 	private static final long serialVersionUID = -4847411748052026276L;
 	/**
-	 * Sent by the server to a client when a connection is established. In this
-	 * message, playerID specifies the playerID of the local player, and data is
-	 * a reference to a regular array of strings specifying the names of the
-	 * players
+	 * Sent by the server to a client when it is seated at a table, in reply to
+	 * its first JOIN message. In this message, playerID specifies the playerID
+	 * of the local player at the table, and data is a reference to a regular
+	 * array of strings specifying the names of the players at the table
 	 */
 	public static final int PLAYER_LIST = 0;
 	/**
@@ -20,8 +20,8 @@ public class CardGameMessage extends GameMessage {
 	 */
 	public static final int JOIN = 1;
 	/**
-	 * Sent by the server to a client after a connection is established but the
-	 * server is not able to serve this client because it is full. In this
+	 * Sent by the server to a client which joins the server when every table is
+	 * full and no more tables can be opened. In this
 	 * message, playerID is -1 (not being used) and data is simply null (not
 	 * being used).
 	 */
@@ -48,6 +48,10 @@ public class CardGameMessage extends GameMessage {
 	 * Sent by a client when the local player makes a move. The server will broadcast this message upon
 	 * receiving it. In this message, playerID specifies the player who makes the move, and data is a
 	 * reference to an array of int specifying the indices of the cards being played.
+	 * <p>
+	 * A server which validates the moves only broadcasts legal moves, with data being a Long holding
+	 * the mask of the cards played (as in a CardSet, 0 for a pass), and replies to the player who makes
+	 * an illegal move with data being null.
 	 */
 	public static final int MOVE = 6;
 	/**
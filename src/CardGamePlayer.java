@@ -7,6 +7,7 @@ public class CardGamePlayer {
 	private static int playerId = 0;
 	private String name = "";
 	private CardList cardsInHand = new CardList();
+	private CardSet cardSet = new CardSet(); // same cards as cardsInHand, for O(1) lookups
 
 	/**
 	 * Creates and returns an instance of the Player class.
@@ -54,6 +55,7 @@ public class CardGamePlayer {
 	public void addCard(Card card) {
 		if (card != null) {
 			cardsInHand.addCard(card);
+			cardSet.add(card);
 		}
 	}
 
@@ -66,7 +68,10 @@ public class CardGamePlayer {
 	 */
 	public void removeCards(CardList cards) {
 		for (int i = 0; i < cards.size(); i++) {
-			cardsInHand.removeCard(cards.getCard(i));
+			Card card = cards.getCard(i);
+			if (cardSet.remove(card)) {
+				cardsInHand.removeCard(card);
+			}
 		}
 	}
 
@@ -75,6 +80,7 @@ public class CardGamePlayer {
 	 */
 	public void removeAllCards() {
 		cardsInHand = new CardList();
+		cardSet.clear();
 	}
 
 	/**
@@ -102,6 +108,16 @@ public class CardGamePlayer {
 		return cardsInHand;
 	}
 
+	/**
+	 * Returns the set of cards held by this player. The set must not be
+	 * modified directly; use addCard() and removeCards() instead.
+	 * 
+	 * @return the set of cards held by this player
+	 */
+	public CardSet getCardSet() {
+		return cardSet;
+	}
+
 	/**
 	 * Returns the list of cards played by this player.
 	 * 
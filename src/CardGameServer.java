@@ -1,48 +1,87 @@
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-
-import javax.swing.JFrame;
-import javax.swing.JMenu;
-import javax.swing.JMenuBar;
-import javax.swing.JMenuItem;
-import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
-import javax.swing.ScrollPaneConstants;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * This class is used to model a card game server.
+ * This class is used to model a card game server. The server logs its
+ * activity to a ServerLog; it shows the log in a ServerConsole window unless
+ * it runs headless (the system property "bigtwo.headless" or
+ * "java.awt.headless" is "true"), in which case the log is written to the
+ * standard output and no AWT class is loaded.
  * 
  * @author Kenneth Wong
  *
  */
 public class CardGameServer {
+	/**
+	 * The system property which makes the server run without a GUI.
+	 */
+	public static final String HEADLESS = "bigtwo.headless";
+	/**
+	 * The system property which makes the server fill the free seats of a
+	 * table with bots when its players are all ready.
+	 */
+	public static final String BOTS = "bigtwo.bots";
+	/**
+	 * The system property setting how long the players of a table wait for
+	 * other players before bots take the free seats, in milliseconds.
+	 */
+	public static final String BOT_DELAY = "bigtwo.botDelay";
+
 	// The name of this card game server
 	private String serverName;
 	// The maximum number of players in a card game
 	private final int maxNumOfPlayers;
-	// Array for holding sockets of the clients
-	private Socket[] clientSockets;
-	// Array for holding ObjectOutputStreams of the clients
-	private ObjectOutputStream[] clientOutputStreams;
-	// Array for holding player names of the clients
-	private String[] clientNames;
-	// Array for holding ready states of the clients
-	private boolean[] clientReadyStates;
-	// number of current players
-	private int numOfPlayers = 0;
-	// the main frame of the server
-	private JFrame frame = null;
-	// text area for displaying server states
-	private JTextArea textArea = null;
+	// The maximum number of tables hosted by this server
+	private final int maxNumOfTables;
+	// list of the tables hosted by this server
+	private final ArrayList<ServerTable> tables = new ArrayList<ServerTable>();
+	// the tables with a free seat, in the order they are filled
+	private final TreeSet<Integer> openTables = new TreeSet<Integer>();
+	// the lock of the lobby, held while a client is seated
+	private final ReentrantLock lobbyLock = new ReentrantLock();
+	// a thread for closing the connections to clients which cannot join, and
+	// for seating bots
+	private final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(task -> {
+				Thread t = new Thread(task, "Scheduler");
+				t.setDaemon(true);
+				return t;
+			});
+	// map from each seated client to its table
+	private final ConcurrentHashMap<ClientConnection, ServerTable> seats = new ConcurrentHashMap<ClientConnection, ServerTable>();
+	// the bots seated at the tables
+	private final Set<ClientConnection> bots = ConcurrentHashMap.newKeySet();
+	// the log of the server
+	private final ServerLog log;
+	// the source of the random numbers of the deals
+	private final SecureRandom deals = new SecureRandom();
 	// a boolean indicating if the server is up
 	private boolean serverUp = false;
 
 	/**
-	 * Creates and returns an instance of the BigTwoServer class.
+	 * Creates and returns an instance of the CardGameServer class with a
+	 * single table.
 	 * 
 	 * @param serverName
 	 *            the name of this card game server
@@ -50,50 +89,54 @@ public class CardGameServer {
 	 *            the maximum number of players in a card game
 	 */
 	public CardGameServer(String serverName, int maxNumOfPlayers) {
+		this(serverName, maxNumOfPlayers, 1);
+	}
+
+	/**
+	 * Creates and returns an instance of the CardGameServer class, which hosts
+	 * up to the specified number of tables. A client joining the server is
+	 * seated at the first table with a free seat.
+	 * 
+	 * @param serverName
+	 *            the name of this card game server
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players in a card game
+	 * @param maxNumOfTables
+	 *            the maximum number of tables hosted by this server
+	 */
+	public CardGameServer(String serverName, int maxNumOfPlayers,
+			int maxNumOfTables) {
 		this.serverName = serverName;
 		this.maxNumOfPlayers = maxNumOfPlayers;
+		this.maxNumOfTables = maxNumOfTables;
 
-		// creates arrays for holding client sockets, output streams, player
-		// names, and ready states
-		clientSockets = new Socket[maxNumOfPlayers];
-		clientOutputStreams = new ObjectOutputStream[maxNumOfPlayers];
-		clientNames = new String[maxNumOfPlayers];
-		clientReadyStates = new boolean[maxNumOfPlayers];
+		if (isHeadless()) {
+			log = new ServerLog(System.out, false);
+		} else {
+			log = new ServerLog(null, true);
+			new ServerConsole(serverName, log);
+		}
+	}
 
-		buildGUI();
+	/**
+	 * Checks if the server runs without a GUI.
+	 * 
+	 * @return true if the system property "bigtwo.headless" or
+	 *         "java.awt.headless" is "true"
+	 */
+	public static boolean isHeadless() {
+		return Boolean.getBoolean(HEADLESS)
+				|| Boolean.getBoolean("java.awt.headless");
 	}
 
 	/**
-	 * Builds the GUI for the server
+	 * Returns the log of the server.
+	 * 
+	 * @return the log of the server
 	 */
-	private void buildGUI() {
-		// build a GUI
-		frame = new JFrame(serverName);
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		textArea = new JTextArea(20, 40);
-		textArea.setEditable(false);
-		textArea.setLineWrap(true);
-		textArea.setWrapStyleWord(true);
-		JScrollPane scroller = new JScrollPane(textArea);
-		scroller.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
-		scroller.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
-		frame.add(scroller);
-
-		// build the menu bar
-		JMenuItem clearMenuItem = new JMenuItem("Clear console");
-		clearMenuItem.addActionListener(new ClearMenuItemListener());
-		JMenuItem quitMenuItem = new JMenuItem("Quit");
-		quitMenuItem.addActionListener(new QuitMenuItemListener());
-		JMenu menu = new JMenu("Option");
-		menu.add(clearMenuItem);
-		menu.add(quitMenuItem);
-		JMenuBar menuBar = new JMenuBar();
-		menuBar.add(menu);
-		frame.setJMenuBar(menuBar);
-
-		frame.pack();
-		frame.setVisible(true);
-	} // buildGUI
+	public ServerLog getLog() {
+		return log;
+	}
 
 	/**
 	 * Starts the server at the specified port
@@ -110,9 +153,10 @@ public class CardGameServer {
 					+ serverSocket.getLocalPort());
 			serverUp = true;
 			while (serverUp) {
-				// waits for clients to connect
+				// waits for clients to connect, and creates a thread for
+				// setting up the connection and receiving messages from it
 				Socket clientSocket = serverSocket.accept();
-				addConnection(clientSocket);
+				HandlerThreads.start(new ClientHandler(clientSocket));
 			} // while
 			serverSocket.close();
 		} catch (Exception ex) {
@@ -122,234 +166,429 @@ public class CardGameServer {
 	} // start
 
 	/**
-	 * Parses the incoming message from the specified client.
+	 * Starts the server at the specified port in non-blocking mode, where a
+	 * single thread serves all clients with a Selector. Clients using a
+	 * MessageCodec are served by the selector thread; a client using a plain
+	 * ObjectOutputStream is handed over to its own thread as in start().
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the specified client
-	 * @param message
-	 *            the message received from the specified client
+	 * @param port
+	 *            the specified port at which the server starts
+	 */
+	public void startSelector(int port) {
+		try {
+			// creates a non-blocking ServerSocketChannel and a Selector
+			Selector selector = Selector.open();
+			ServerSocketChannel serverChannel = ServerSocketChannel.open();
+			serverChannel.bind(new InetSocketAddress(port));
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+			println("Starts up the non-blocking server at localhost:"
+					+ serverChannel.socket().getLocalPort());
+			serverUp = true;
+			// the object stream clients whose keys are cancelled, to be handed
+			// over to their own threads once the selected keys are handled
+			ArrayList<ChannelConnection> handoffs = new ArrayList<ChannelConnection>();
+			while (serverUp) {
+				// waits for channels to become ready
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						// registers the new client channel for reading
+						SocketChannel channel = serverChannel.accept();
+						if (channel != null) {
+							channel.configureBlocking(false);
+							SelectionKey clientKey = channel.register(
+									selector, SelectionKey.OP_READ);
+							clientKey.attach(new ChannelConnection(channel,
+									clientKey));
+						}
+						continue;
+					}
+					ChannelConnection client = (ChannelConnection) key
+							.attachment();
+					try {
+						if (key.isWritable()) {
+							client.flush();
+						}
+						if (key.isValid() && key.isReadable()) {
+							readChannel(selector, client, handoffs);
+						}
+					} catch (Exception ex) {
+						println("Error in receiving messages from the client at "
+								+ client.getRemoteSocketAddress());
+						ex.printStackTrace();
+						// possible connection loss, removes the connection
+						removeConnection(client);
+					}
+				} // while
+
+				if (!handoffs.isEmpty()) {
+					// deregisters the cancelled keys, which selectNow() must not
+					// do while the selected keys are being iterated
+					selector.selectNow();
+					for (ChannelConnection client : handoffs) {
+						try {
+							handOver(client);
+						} catch (Exception ex) {
+							println("Error in handing over the client at "
+									+ client.getRemoteSocketAddress());
+							ex.printStackTrace();
+							client.close();
+						}
+					}
+					handoffs.clear();
+				}
+			} // while
+			serverChannel.close();
+			selector.close();
+		} catch (Exception ex) {
+			println("Error in starting up the server at localhost:" + port);
+			ex.printStackTrace();
+		}
+	} // startSelector
+
+	/**
+	 * Reads the bytes available from a client channel and parses every whole
+	 * message received. The first four bytes from a client select its codec.
+	 * A client using a plain ObjectOutputStream has its key cancelled and is
+	 * added to the handoffs, to be handed over to its own thread after the
+	 * selected keys are handled.
+	 * 
+	 * @param selector
+	 *            the selector of the server
+	 * @param client
+	 *            the connection to the client
+	 * @param handoffs
+	 *            the clients to be handed over to their own threads
+	 * @throws IOException
+	 *             if the connection is lost or a message is not valid
 	 */
-	private synchronized void parseMessage(Socket clientSocket,
-			CardGameMessage message) {
-		// updates the playerID
-		for (int i = 0; i < maxNumOfPlayers; i++) {
-			if (clientSockets[i] == clientSocket) {
-				message.setPlayerID(i);
-				break;
+	private void readChannel(Selector selector, ChannelConnection client,
+			ArrayList<ChannelConnection> handoffs) throws IOException {
+		if (client.read() < 0) {
+			throw new EOFException("Connection closed by the client");
+		}
+		if (client.getCodec() == null) {
+			int magic = client.takeMagic();
+			if (magic == 0) {
+				return;
+			}
+			MessageCodec codec = MessageCodec.forMagic(magic);
+			if (codec != null) {
+				client.acceptCodec(codec);
+				addConnection(client);
+			} else if (magic == MessageCodec.OBJECT_STREAM_MAGIC) {
+				// stops selecting the channel, which is handed over later
+				client.getChannel().keyFor(selector).cancel();
+				handoffs.add(client);
+				return;
+			} else {
+				throw new IOException("Unknown protocol "
+						+ Integer.toHexString(magic));
 			}
 		}
 
-		// parses the message based on it type
-		switch (message.getType()) {
-		case CardGameMessage.JOIN:
-			// adds a player to the game
-			addPlayer(clientSocket, (String) message.getData());
-			break;
-		case CardGameMessage.READY:
-			// marks the specified player as ready for a new game
-			setReadyState(clientSocket);
-			break;
-		case CardGameMessage.MOVE:
-			println("Broadcasts a \"MOVE\" message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the MOVE message to all clients
-			broadcastMessage(message);
-			break;
-		case CardGameMessage.MSG:
-			println("Broadcasts a user message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the user message to all clients
-			broadcastUserMessage(clientSocket, (String) message.getData());
-			break;
-		default:
-			println("Wrong message type: " + message.getType());
-			// invalid message
-			break;
+		// parses every whole message received
+		CardGameMessage message;
+		while ((message = client.nextMessage()) != null) {
+			if (log.isDebugEnabled()) {
+				log.debug("Message received from "
+						+ client.getRemoteSocketAddress());
+			}
+			parseMessage(client, message);
 		}
-	} // parseMessage
+	} // readChannel
+
+	/**
+	 * Hands a client using a plain ObjectOutputStream over to a thread using
+	 * blocking streams, as in start(). The key of its channel must have been
+	 * cancelled and deregistered from the selector.
+	 * 
+	 * @param client
+	 *            the connection to the client, whose magic number has been
+	 *            read
+	 * @throws IOException
+	 *             if the channel cannot be made blocking
+	 */
+	private void handOver(ChannelConnection client) throws IOException {
+		SocketChannel channel = client.getChannel();
+		channel.configureBlocking(true);
+		ByteBuffer header = ByteBuffer.allocate(4);
+		header.putInt(MessageCodec.OBJECT_STREAM_MAGIC);
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(
+				header.array()), new SequenceInputStream(
+				new ByteArrayInputStream(client.takeBuffered()), channel
+						.socket().getInputStream()));
+		HandlerThreads.start(new ClientHandler(new SocketConnection(channel
+				.socket(), in, null)));
+	}
 
 	/**
-	 * Broadcasts the specified message to all clients.
+	 * Parses the incoming message from the specified client. The message is
+	 * passed to the table of the client; a client which is not yet seated may
+	 * only join the server.
 	 * 
+	 * @param client
+	 *            the connection to the specified client
 	 * @param message
-	 *            the specified message to be broadcast to all clients
+	 *            the message received from the specified client
 	 */
-	private synchronized void broadcastMessage(CardGameMessage message) {
-		if (numOfPlayers > 0) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] != null && clientOutputStreams[i] != null) {
-					try {
-						clientOutputStreams[i].writeObject(message);
-					} catch (Exception ex) {
-						println("Error in broadcasting a message to the client at "
-								+ clientSockets[i].getRemoteSocketAddress());
-						ex.printStackTrace();
-					}
-				}
+	private void parseMessage(ClientConnection client, CardGameMessage message) {
+		ServerTable table = seats.get(client);
+		if (table == null) {
+			if (message.getType() != CardGameMessage.JOIN) {
+				println("Ignores a message from the client at "
+						+ client.getRemoteSocketAddress()
+						+ " before it joins the server");
+				return;
+			}
+			table = joinTable(client);
+			if (table == null) {
+				return;
 			}
 		}
-	} // broadcastMessage
+		table.parseMessage(client, message);
+		dropLaggards(table);
+	} // parseMessage
 
 	/**
-	 * Adds a new socket connection to the server
+	 * Adds a new connection to the server. The client is seated at a table
+	 * when it sends a JOIN message.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to be added to the server
+	 * @param client
+	 *            the connection to be added to the server
 	 */
-	private synchronized void addConnection(Socket clientSocket) {
-		// adds this connection to the server if the server is not full
-		if (numOfPlayers < maxNumOfPlayers) {
-			// locates the first empty slot for the new connection
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == null) {
-					try {
-						// creates an ObjectOutputStream for this client socket
-						ObjectOutputStream oostream = new ObjectOutputStream(
-								clientSocket.getOutputStream());
-
-						clientSockets[i] = clientSocket;
-						clientOutputStreams[i] = oostream;
-						clientNames[i] = null;
-						clientReadyStates[i] = false;
-						numOfPlayers++;
-						println("Establishes a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-
-						// creates a thread for receiving messages from this
-						// client
-						Thread t = new Thread(new ClientHandler(clientSocket));
-						t.start();
-
-						// sends the player list to the new player
-						oostream.writeObject(new CardGameMessage(
-								CardGameMessage.PLAYER_LIST, i, clientNames));
-					} catch (Exception ex) {
-						println("Error in establishing a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-						ex.printStackTrace();
+	private void addConnection(ClientConnection client) {
+		println("Establishes a connection with a client at "
+				+ client.getRemoteSocketAddress());
+	} // addConnection
+
+	/**
+	 * Seats a client at the first table with a free seat, opening a new table
+	 * if every table is full. If the maximum number of tables has been
+	 * reached, a FULL message is sent and the connection is closed.
+	 * 
+	 * @param client
+	 *            the connection to the client
+	 * @return the table of the client, or null if the server is full
+	 */
+	private ServerTable joinTable(ClientConnection client) {
+		lobbyLock.lock();
+		try {
+			while (!openTables.isEmpty() || tables.size() < maxNumOfTables) {
+				ServerTable table;
+				if (openTables.isEmpty()) {
+					table = createTable(tables.size());
+					tables.add(table);
+					openTables.add(table.getTableID());
+				} else {
+					table = tables.get(openTables.first());
+				}
+				// seats are only freed outside this lock, so a table in the
+				// list may have been filled meanwhile
+				if (table.addConnection(client) >= 0) {
+					seats.put(client, table);
+					if (!table.hasFreeSeat()) {
+						openTables.remove(table.getTableID());
 					}
-					break;
+					return table;
 				}
-			} // for
-		} else {
-			// Max. no. of players reached
-			println("Server is full: cannot establish a connection with a client at "
-					+ clientSocket.getRemoteSocketAddress());
-
-			// creates a thread for sending a FULL message to this client, waits
-			// for 1000 milliseconds and closes the socket
-			Thread t = new Thread(new ClientHandler2(clientSocket));
-			t.start();
+				openTables.remove(table.getTableID());
+			}
+		} finally {
+			lobbyLock.unlock();
 		}
 
-	} // addConnection
+		// Max. no. of tables reached
+		println("Server is full: cannot establish a connection with a client at "
+				+ client.getRemoteSocketAddress());
+
+		// sends a FULL message to this client and closes the connection after
+		// 1000 milliseconds, without holding up a thread meanwhile
+		try {
+			client.sendMessage(new CardGameMessage(CardGameMessage.FULL, -1,
+					null));
+		} catch (Exception ex) {
+			println("Error in sending a FULL message to the client at "
+					+ client.getRemoteSocketAddress());
+			ex.printStackTrace();
+		}
+		scheduler.schedule(client::close, 1000, TimeUnit.MILLISECONDS);
+		return null;
+	} // joinTable
 
 	/**
 	 * Removes a connection from the server (possibly due to connection loss).
 	 * 
-	 * @param clientSocket
-	 *            the socket connection being removed from the server
+	 * @param client
+	 *            the connection being removed from the server
 	 */
-	private synchronized void removeConnection(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String name = clientNames[i];
-
-					clientSockets[i] = null;
-					clientOutputStreams[i] = null;
-					clientNames[i] = null;
-					clientReadyStates[i] = false;
-					numOfPlayers--;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") leaves the game.");
-
-					String remoteAddress = clientSocket
-							.getRemoteSocketAddress().toString();
-
-					// broadcasts a message about the leaving of this player
-					broadcastMessage(new CardGameMessage(CardGameMessage.QUIT,
-							i, remoteAddress));
-					break;
+	private void removeConnection(ClientConnection client) {
+		ServerTable table = leaveTable(client);
+		if (table != null) {
+			// bots do not play on their own, so they leave with the last
+			// player, all from this one list of the table; a bot which has
+			// already left, e.g. as a laggard, is skipped
+			ArrayList<ClientConnection> others = table.getConnections();
+			boolean onlyBots = true;
+			for (ClientConnection other : others) {
+				onlyBots &= isBot(other);
+			}
+			if (onlyBots) {
+				for (ClientConnection bot : others) {
+					if (leaveTable(bot) != null) {
+						bot.close();
+					}
 				}
 			}
 		}
+		client.close();
 	} // removeConnection
 
 	/**
-	 * adds a player to the game.
+	 * Unseats a client from its table and frees its seat, unless the client
+	 * has already left.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who is joining the game
-	 * @param name
-	 *            the name of the player who is joining the game
+	 * @param client
+	 *            the client leaving its table
+	 * @return the table which the client has left, or null if the client was
+	 *         not seated
 	 */
-	private synchronized void addPlayer(Socket clientSocket, String name) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					// updates the name of the new player
-					clientNames[i] = name;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") joins the game.");
-
-					// broadcasts a message about this player joining the game
-					broadcastMessage(new CardGameMessage(CardGameMessage.JOIN,
-							i, name));
-					break;
-				}
-			}
+	private ServerTable leaveTable(ClientConnection client) {
+		ServerTable table = seats.remove(client);
+		bots.remove(client);
+		if (table == null) {
+			return null;
 		}
-	} // addPlayer
+		table.removeConnection(client);
+		lobbyLock.lock();
+		try {
+			openTables.add(table.getTableID());
+		} finally {
+			lobbyLock.unlock();
+		}
+		dropLaggards(table);
+		return table;
+	} // leaveTable
 
 	/**
-	 * Marks the specified player as ready for a new game.
+	 * Passes a message from a client which does not have a connection of its
+	 * own, such as a bot, to its table.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who becomes ready for a
-	 *            new game
+	 * @param client
+	 *            the client
+	 * @param message
+	 *            the message from the client
 	 */
-	private synchronized void setReadyState(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					clientReadyStates[i] = true;
-					println(clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress()
-							+ " ) is ready for the next game.");
-					broadcastMessage(new CardGameMessage(CardGameMessage.READY,
-							i, null));
-					break;
-				}
-			}
+	public void receive(ClientConnection client, CardGameMessage message) {
+		if (seats.containsKey(client)) {
+			parseMessage(client, message);
 		}
+	}
 
-		// checks if all players are ready
-		if (numOfPlayers == maxNumOfPlayers) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientReadyStates[i] == false) {
-					// returns if any of the players is not ready
+	/**
+	 * Checks if a client is a bot seated by this server.
+	 * 
+	 * @param client
+	 *            the client
+	 * @return true if the client is a bot
+	 */
+	public boolean isBot(ClientConnection client) {
+		return bots.contains(client);
+	}
+
+	/**
+	 * Creates and returns a bot to take a free seat. Overrides this method if
+	 * the server has bots.
+	 * 
+	 * @return a new bot, or null if the server has no bots
+	 */
+	protected ClientConnection createBot() {
+		return null;
+	}
+
+	/**
+	 * Fills the free seats of a table with bots after a delay, if the server
+	 * has bots and the players at the table are still all ready then. This is
+	 * called by a table whenever a player becomes ready.
+	 * 
+	 * @param table
+	 *            the table
+	 */
+	void requestBots(ServerTable table) {
+		if (Boolean.getBoolean(BOTS)) {
+			scheduler.schedule(() -> fillSeats(table),
+					Integer.getInteger(BOT_DELAY, 3000), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Seats bots at the free seats of a table whose players are all ready.
+	 * 
+	 * @param table
+	 *            the table
+	 */
+	private void fillSeats(ServerTable table) {
+		lobbyLock.lock();
+		try {
+			// the bots seated are not ready yet, so the table is checked once
+			boolean waiting = table.isWaitingForPlayers();
+			while (waiting && table.hasFreeSeat()) {
+				ClientConnection bot = createBot();
+				if (bot == null) {
 					return;
 				}
+				// the bot is known before it is seated, as it may reply at
+				// once from another thread
+				bots.add(bot);
+				seats.put(bot, table);
+				if (table.addConnection(bot) < 0) {
+					seats.remove(bot);
+					bots.remove(bot);
+					break;
+				}
 			}
-
-			// resets the ready states of all the players for the next game
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				clientReadyStates[i] = false;
+			if (!table.hasFreeSeat()) {
+				openTables.remove(table.getTableID());
 			}
+		} finally {
+			lobbyLock.unlock();
+		}
+		dropLaggards(table);
+	} // fillSeats
 
-			// creates a new deck, shuffles the deck, and starts a new game
-			Deck deck = createDeck();
-			deck.shuffle();
-			println("All players are ready. Game starts.");
-			broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
-					deck));
+	/**
+	 * Disconnects the clients of a table to which a message could not be sent,
+	 * e.g. because their outbound queues are full.
+	 * 
+	 * @param table
+	 *            the table of the clients
+	 */
+	private void dropLaggards(ServerTable table) {
+		for (ClientConnection client : table.takeLaggards()) {
+			println("Disconnects the client at "
+					+ client.getRemoteSocketAddress());
+			removeConnection(client);
 		}
+	} // dropLaggards
+
+	/**
+	 * Creates and returns a table of this server. Overrides this method if the
+	 * tables keep track of the games.
+	 * 
+	 * @param tableID
+	 *            the index of the new table
+	 * @return a new table
+	 */
+	protected ServerTable createTable(int tableID) {
+		return new ServerTable(this, tableID, maxNumOfPlayers);
 	}
 
 	/**
@@ -362,31 +601,26 @@ public class CardGameServer {
 		return new Deck();
 	}
 
-	private synchronized void broadcastUserMessage(Socket clientSocket,
-			String msg) {
-		if (numOfPlayers > 0) {
-			// locates the client in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String longMsg = clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress() + "): "
-							+ msg;
-					broadcastMessage(new CardGameMessage(CardGameMessage.MSG,
-							i, longMsg));
-					break;
-				}
-			}
-		}
+	/**
+	 * Shuffles a new deck with the random numbers of a SecureRandom, so that
+	 * the deal cannot be predicted and any of the orders of the deck may come
+	 * up, which a 64-bit seed could not ensure.
+	 * 
+	 * @param deck
+	 *            the deck to be shuffled
+	 */
+	public void shuffleDeck(Deck deck) {
+		deck.shuffle(deals);
 	}
 
 	/**
-	 * Prints the specified message to the text area.
+	 * Logs the specified message.
 	 * 
 	 * @param msg
+	 *            the message to be logged
 	 */
-	private void println(String msg) {
-		textArea.append(msg + "\n");
-		textArea.setCaretPosition(textArea.getDocument().getLength());
+	void println(String msg) {
+		log.info(msg);
 	}
 
 	/**
@@ -397,7 +631,7 @@ public class CardGameServer {
 	 */
 	private class ClientHandler implements Runnable {
 		private Socket clientSocket; // socket connection to the client
-		private ObjectInputStream oistream; // ObjectInputStream of the client
+		private SocketConnection connection; // connection to the client
 
 		/**
 		 * Creates and returns an instance of the ClientHandler class.
@@ -407,110 +641,60 @@ public class CardGameServer {
 		 */
 		public ClientHandler(Socket clientSocket) {
 			this.clientSocket = clientSocket;
-			try {
-				// creates an ObjectInputStream and chains it to the InputStream
-				// of the client socket
-				oistream = new ObjectInputStream(clientSocket.getInputStream());
-			} catch (Exception ex) {
-				println("Error in creating an ObjectInputStream for the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
 		} // constructor
 
-		// implementation of method from the Runnable interface
-		public void run() {
-			CardGameMessage message;
-			try {
-				// waits for messages from the client
-				while ((message = (CardGameMessage) oistream.readObject()) != null) {
-					println("Message received from "
-							+ clientSocket.getRemoteSocketAddress());
-					parseMessage(clientSocket, message);
-				} // close while
-			} catch (Exception ex) {
-				println("Error in receiving messages from the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-				// possible connection loss, removes the connection
-				removeConnection(clientSocket);
-			}
-		} // run
-	} // ClientHandler
-
-	private class ClientHandler2 implements Runnable {
-		private Socket clientSocket; // socket connection to the client
-
 		/**
-		 * Creates and returns an instance of the ClientHandler2 class.
+		 * Creates and returns an instance of the ClientHandler class for a
+		 * connection which has already been set up.
 		 * 
-		 * @param clientSocket
-		 *            the socket connection to the client
+		 * @param connection
+		 *            the connection to the client
 		 */
-		public ClientHandler2(Socket clientSocket) {
-			this.clientSocket = clientSocket;
+		public ClientHandler(SocketConnection connection) {
+			this.connection = connection;
 		} // constructor
 
 		// implementation of method from the Runnable interface
 		public void run() {
-			try {
-				// creates an ObjectOutputStream and chains it to the
-				// OutputStream
-				// of the client socket
-				ObjectOutputStream oostream = new ObjectOutputStream(
-						clientSocket.getOutputStream());
-				// sends a FULL message to the client
-				oostream.writeObject(new CardGameMessage(CardGameMessage.FULL,
-						-1, null));
-				oostream.flush();
-			} catch (Exception ex) {
-				println("Error in sending a FULL message to the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
-
-			// sleeps for 1000 milliseconds before closing the socket
-			try {
-				Thread.sleep(1000);
-			} catch (Exception ex) {
-				println("Error in sleeping before closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
+			if (connection == null) {
+				try {
+					// finds out whether the client uses a codec or an
+					// ObjectOutputStream, and creates the streams
+					connection = SocketConnection.accept(clientSocket);
+				} catch (Exception ex) {
+					println("Error in creating the streams for the client at "
+							+ clientSocket.getRemoteSocketAddress());
+					ex.printStackTrace();
+					try {
+						clientSocket.close();
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+					return;
+				}
 			}
+			// messages are sent to the client through a queue, so that a
+			// slow client does not hold up the others
+			ClientConnection client = new QueuedConnection(connection);
+			addConnection(client);
 
-			// closes the socket
+			CardGameMessage message;
 			try {
-				clientSocket.close();
+				// waits for messages from the client
+				while ((message = connection.readMessage()) != null) {
+					if (log.isDebugEnabled()) {
+						log.debug("Message received from "
+								+ client.getRemoteSocketAddress());
+					}
+					parseMessage(client, message);
+				} // close while
 			} catch (Exception ex) {
-				println("Error in closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
+				println("Error in receiving messages from the client at "
+						+ client.getRemoteSocketAddress());
 				ex.printStackTrace();
+				// possible connection loss, removes the connection
+				removeConnection(client);
 			}
 		} // run
-	} // ClientHandler2
-
-	/**
-	 * This inner class is used for handling the Clear menu
-	 * 
-	 * @author Kenneth Wong
-	 *
-	 */
-	private class ClearMenuItemListener implements ActionListener {
-		public void actionPerformed(ActionEvent e) {
-			textArea.setText("");
-		}
-	} // ClearMenuItemListener
-
-	/**
-	 * This inner class is used for handling the Quit menu
-	 * 
-	 * @author Kenneth Wong
-	 *
-	 */
-	private class QuitMenuItemListener implements ActionListener {
-		public void actionPerformed(ActionEvent e) {
-			frame.dispose();
-			System.exit(0);
-		}
-	} // QuitMenuItemListener
+	} // ClientHandler
 }
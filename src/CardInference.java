@@ -0,0 +1,335 @@
+import java.util.SplittableRandom;
+
+/**
+ * The CardInference class is used to track what a player of a Big Two card game can tell about the hidden
+ * hands of the other players from the moves made so far, without going through the history again.
+ * For each player it keeps the cards he/she may still hold, which only the cards played narrow down,
+ * and the cards he/she likely holds, which also assume that a player who passes on a single holds no
+ * higher card. A player who then plays a card thought unlikely has passed by choice, and the assumption
+ * is dropped for him/her. The number of cards of each player narrows both down further, as a player
+ * who may hold only as many cards as he/she has holds exactly those. Each move updates a few masks of
+ * cards, and the probability that a player holds a card is computed from the masks when needed.
+ * It deals the hidden cards at random in line with what it knows, for the guesses of a BigTwoSearch,
+ * and tells the local player of a BigTwoClient what each opponent may hold. An object is used by one
+ * thread at a time, as dealing reuses its buffers; each thread of a search deals from its own copy.
+ * @author Zhou Jingran
+ *
+ */
+public class CardInference {
+    public static final int NUM_OF_CARDS = 13; // the number of cards dealt to each player
+    private static final int NUM_OF_PLAYERS = BigTwoState.NUM_OF_PLAYERS; // the number of players
+    private static final int ATTEMPTS = 4; // the number of tries to deal in line with each kind of knowledge
+
+    private final int me; // the index of the player whose knowledge is tracked
+    private final long[] possible = new long[NUM_OF_PLAYERS]; // the cards each player may hold
+    private final long[] likely = new long[NUM_OF_PLAYERS]; // the cards each player likely holds
+    private final int[] numOfCards = new int[NUM_OF_PLAYERS]; // the number of cards of each player
+    private long lastMove = MoveGenerator.PASS; // the last hand played
+    private int lastPlayer = -1; // the index of the player of the last hand played, or -1
+    private final long[] dealt = new long[NUM_OF_PLAYERS]; // the hands dealt by tryDeal()
+    private final int[] need = new int[NUM_OF_PLAYERS]; // the number of cards each player still needs
+
+    /**
+     * A constructor for tracking the knowledge of a player from the start of a game.
+     * @param me the index of the player
+     * @param hand the mask of the cards dealt to the player
+     */
+    public CardInference(int me, long hand) {
+        this.me = me;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            possible[i] = i == me ? hand : BigTwoState.ALL_CARDS & ~hand;
+            likely[i] = possible[i];
+            numOfCards[i] = i == me ? Long.bitCount(hand) : NUM_OF_CARDS;
+        }
+    }
+
+    /**
+     * A constructor for copying the knowledge tracked by another object, e.g. for a search on another thread.
+     * @param other the object to be copied
+     */
+    public CardInference(CardInference other) {
+        me = other.me;
+        System.arraycopy(other.possible, 0, possible, 0, NUM_OF_PLAYERS);
+        System.arraycopy(other.likely, 0, likely, 0, NUM_OF_PLAYERS);
+        System.arraycopy(other.numOfCards, 0, numOfCards, 0, NUM_OF_PLAYERS);
+        lastMove = other.lastMove;
+        lastPlayer = other.lastPlayer;
+    }
+
+    /**
+     * A method for updating the knowledge with a move which has been made.
+     * @param playerID the index of the player who made the move
+     * @param move the mask of the cards played, or MoveGenerator.PASS
+     */
+    public void apply(int playerID, long move) {
+        if (move == MoveGenerator.PASS) {
+            if (playerID != me && lastPlayer >= 0 && lastPlayer != playerID && Long.bitCount(lastMove) == 1) {
+                // assumes that an opponent could not beat the single, i.e. holds no higher card
+                likely[playerID] &= lastMove - 1;
+                propagate();
+            }
+            return;
+        }
+        if ((move & ~likely[playerID]) != 0) {
+            // the player passed by choice before, so his/her passes tell nothing
+            likely[playerID] = possible[playerID];
+        }
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            possible[i] &= ~move;
+            likely[i] &= ~move;
+        }
+        numOfCards[playerID] -= Long.bitCount(move);
+        lastMove = move;
+        lastPlayer = playerID;
+        propagate();
+    }
+
+    /**
+     * A method for retrieving the cards which a player may hold, given the cards played.
+     * @param playerID the index of the player
+     * @return the mask of the cards which the player may hold
+     */
+    public long getPossible(int playerID) {return possible[playerID];}
+
+    /**
+     * A method for retrieving the cards which a player likely holds, also assuming that a player who passes
+     * on a single holds no higher card.
+     * @param playerID the index of the player
+     * @return the mask of the cards which the player likely holds
+     */
+    public long getLikely(int playerID) {return likely[playerID];}
+
+    /**
+     * A method for retrieving the number of cards held by a player.
+     * @param playerID the index of the player
+     * @return the number of cards held by the player
+     */
+    public int getNumOfCards(int playerID) {return numOfCards[playerID];}
+
+    /**
+     * A method for retrieving the highest card which a player likely holds.
+     * @param playerID the index of the player
+     * @return the index of the card, as in a CardSet, or -1 if the player holds no card
+     */
+    public int getHighestCard(int playerID) {return 63 - Long.numberOfLeadingZeros(likely[playerID]);}
+
+    /**
+     * A method for estimating the probability that a player holds a card. The card is shared among the
+     * players who likely hold it in proportion to their number of cards over their number of likely
+     * cards, which is exact as long as nobody has passed on a single.
+     * @param playerID the index of the player
+     * @param card the index of the card, as in a CardSet
+     * @return the probability, between 0 and 1
+     */
+    public double getProbability(int playerID, int card) {
+        long bit = 1L << card;
+        if ((likely[playerID] & bit) == 0) {
+            return 0;
+        }
+        if (playerID == me) {
+            return 1;
+        }
+        double total = 0;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me && (likely[i] & bit) != 0) {
+                total += weight(i);
+            }
+        }
+        return weight(playerID) / total;
+    }
+
+    /**
+     * A method for estimating the number of cards of a set which a player holds.
+     * @param playerID the index of the player
+     * @param cards the mask of the cards
+     * @return the expected number of the cards which the player holds
+     */
+    public double getExpectedNumOfCards(int playerID, long cards) {
+        double expected = 0;
+        for (long m = cards; m != 0; m &= m - 1) {
+            expected += getProbability(playerID, Long.numberOfTrailingZeros(m));
+        }
+        return expected;
+    }
+
+    /**
+     * A method for dealing the cards of the other players in a guess at random, keeping their numbers of
+     * cards, in line with the likely cards of each player if possible, or else with the possible cards.
+     * @param guess the state whose other players' hands are replaced
+     * @param random a source of random numbers
+     * @param buffer a buffer for 52 cards
+     */
+    public void deal(BigTwoState guess, SplittableRandom random, byte[] buffer) {
+        for (int attempt = 0; attempt < 2 * ATTEMPTS; attempt++) {
+            if (tryDeal(guess, attempt < ATTEMPTS ? likely : possible, random, buffer)) {
+                return;
+            }
+        }
+        dealUniformly(guess, me, random, buffer);
+    }
+
+    /**
+     * A method for dealing the cards which a player has not seen to the other players at random, keeping
+     * their numbers of cards.
+     * @param guess the state whose other players' hands are replaced
+     * @param me the index of the player
+     * @param random a source of random numbers
+     * @param buffer a buffer for 52 cards
+     */
+    public static void dealUniformly(BigTwoState guess, int me, SplittableRandom random, byte[] buffer) {
+        int count = 0;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me) {
+                for (long m = guess.getHand(i); m != 0; m &= m - 1) {
+                    buffer[count++] = (byte) Long.numberOfTrailingZeros(m);
+                }
+            }
+        }
+        shuffle(buffer, count, random);
+        int next = 0;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me) {
+                long hand = 0L;
+                for (int k = guess.getNumOfCards(i); k > 0; k--) {
+                    hand |= 1L << buffer[next++];
+                }
+                guess.setHand(i, hand);
+            }
+        }
+    }
+
+    /**
+     * A method for trying to deal the cards of the other players in a guess in line with some knowledge.
+     * The cards which only one player may hold are dealt to him/her, and each of the others to one of the
+     * players who may hold it and still need cards, in proportion to the cards they need.
+     * @param guess the state whose other players' hands are replaced if the deal succeeds
+     * @param sets the cards which each player may hold
+     * @param random a source of random numbers
+     * @param buffer a buffer for 52 cards
+     * @return true if the cards have been dealt, or false if the deal ran into a dead end
+     */
+    private boolean tryDeal(BigTwoState guess, long[] sets, SplittableRandom random, byte[] buffer) {
+        long pool = 0L;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me) {
+                pool |= guess.getHand(i);
+            }
+        }
+        long rest = pool;
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me) {
+                long others = 0L;
+                for (int j = 0; j < NUM_OF_PLAYERS; j++) {
+                    if (j != me && j != i) {
+                        others |= sets[j];
+                    }
+                }
+                dealt[i] = pool & sets[i] & ~others; // the cards which only this player may hold
+                need[i] = guess.getNumOfCards(i) - Long.bitCount(dealt[i]);
+                if (need[i] < 0) {
+                    return false;
+                }
+                rest &= ~dealt[i];
+            }
+        }
+
+        int count = 0;
+        for (long m = rest; m != 0; m &= m - 1) {
+            buffer[count++] = (byte) Long.numberOfTrailingZeros(m);
+        }
+        shuffle(buffer, count, random);
+        for (int k = 0; k < count; k++) {
+            long bit = 1L << buffer[k];
+            int total = 0;
+            for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+                if (i != me && (sets[i] & bit) != 0) {
+                    total += need[i];
+                }
+            }
+            if (total == 0) {
+                return false;
+            }
+            int pick = random.nextInt(total);
+            for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+                if (i != me && (sets[i] & bit) != 0) {
+                    pick -= need[i];
+                    if (pick < 0) {
+                        dealt[i] |= bit;
+                        need[i]--;
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+            if (i != me) {
+                guess.setHand(i, dealt[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method for narrowing down the cards of the players by their numbers of cards, until nothing
+     * changes. If the likely cards no longer fit the numbers of cards, the passes told nothing after all,
+     * and the likely cards are reset to the possible cards.
+     */
+    private void propagate() {
+        narrow(possible);
+        if (!narrow(likely)) {
+            System.arraycopy(possible, 0, likely, 0, NUM_OF_PLAYERS);
+        }
+    }
+
+    /**
+     * A method for narrowing down the cards which each player may hold by the numbers of cards: a player
+     * who may hold as many cards as he/she has holds exactly those, so the others cannot hold them.
+     * @param sets the cards which each player may hold
+     * @return false if a player may hold fewer cards than he/she has
+     */
+    private boolean narrow(long[] sets) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < NUM_OF_PLAYERS; i++) {
+                int size = Long.bitCount(sets[i]);
+                if (size < numOfCards[i]) {
+                    return false;
+                }
+                if (size == numOfCards[i]) {
+                    for (int j = 0; j < NUM_OF_PLAYERS; j++) {
+                        if (j != i && (sets[j] & sets[i]) != 0) {
+                            sets[j] &= ~sets[i];
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method for estimating the share of the hidden cards likely held by a player which he/she holds.
+     * @param playerID the index of the player
+     * @return the number of cards of the player over the number of cards he/she likely holds
+     */
+    private double weight(int playerID) {
+        return (double) numOfCards[playerID] / Long.bitCount(likely[playerID]);
+    }
+
+    /**
+     * A method for shuffling the first cards of a buffer, by Fisher-Yates.
+     * @param buffer the buffer
+     * @param count the number of cards to shuffle
+     * @param random a source of random numbers
+     */
+    private static void shuffle(byte[] buffer, int count, SplittableRandom random) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte card = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = card;
+        }
+    }
+}
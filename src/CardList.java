@@ -1,5 +1,6 @@
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.random.RandomGenerator;
 
 /**
  * This class is used to represent a list of cards.
@@ -122,6 +123,20 @@ public class CardList implements Serializable {
 		cards.sort(null);
 	}
 
+	/**
+	 * Shuffles this list with the Fisher-Yates algorithm, so that every order
+	 * is equally likely, swapping the cards in place.
+	 * 
+	 * @param random
+	 *            the source of random numbers
+	 */
+	protected void shuffle(RandomGenerator random) {
+		for (int i = cards.size() - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			cards.set(i, cards.set(j, cards.get(i)));
+		}
+	}
+
 	/**
 	 * Returns the number of cards in this list.
 	 * 
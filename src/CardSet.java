@@ -0,0 +1,183 @@
+/**
+ * The CardSet class is used to model a set of cards packed into the bits of a long.
+ * There is one bit for each of the 52 cards, ordered by Big Two rank and then by suit,
+ * so that bit 0 is the 3 of Diamonds and bit 51 is the 2 of Spades.
+ * @author Zhou Jingran
+ *
+ */
+public class CardSet {
+    public static final long FULL_DECK = (1L << 52) - 1; // a mask with all 52 cards set
+    private long mask; // the bits of the cards in this set
+
+    /**
+     * A constructor for building an empty set of cards.
+     */
+    public CardSet() {
+        mask = 0L;
+    }
+
+    /**
+     * A constructor for building a set of cards from the specified mask.
+     * @param mask a mask with one bit set for each card in the set
+     */
+    public CardSet(long mask) {
+        this.mask = mask & FULL_DECK;
+    }
+
+    /**
+     * A method for retrieving the bit index of the card with the specified suit and rank.
+     * @param suit an integer between 0 and 3 specifying the suit of the card
+     * @param rank an integer between 0 and 12 specifying the rank of the card
+     * @return the bit index of the card, between 0 and 51
+     */
+    public static int indexOf(int suit, int rank) {
+        return (rank + 11) % 13 * 4 + suit;
+    }
+
+    /**
+     * A method for retrieving the bit index of the specified card.
+     * @param card the card whose bit index is to be returned
+     * @return the bit index of the card, between 0 and 51
+     */
+    public static int indexOf(Card card) {
+        if (card instanceof BigTwoCard) {
+            return ((BigTwoCard) card).getOrdinal();
+        }
+        return indexOf(card.getSuit(), card.getRank());
+    }
+
+    /**
+     * A method for retrieving the suit of the card at the specified bit index.
+     * @param index the bit index of the card, between 0 and 51
+     * @return an integer between 0 and 3 specifying the suit of the card
+     */
+    public static int suitOf(int index) {
+        return index & 3;
+    }
+
+    /**
+     * A method for retrieving the rank of the card at the specified bit index.
+     * @param index the bit index of the card, between 0 and 51
+     * @return an integer between 0 and 12 specifying the rank of the card
+     */
+    public static int rankOf(int index) {
+        return ((index >> 2) + 2) % 13;
+    }
+
+    /**
+     * A method for computing the mask of the specified list of cards.
+     * @param cards the list of cards
+     * @return a mask with one bit set for each card in the list
+     */
+    public static long maskOf(CardList cards) {
+        long mask = 0L;
+        for (int i = 0; i < cards.size(); i++) {
+            mask |= 1L << indexOf(cards.getCard(i));
+        }
+        return mask;
+    }
+
+    /**
+     * A method for building a set of cards from the specified list of cards.
+     * @param cards the list of cards
+     * @return a set containing the cards in the list
+     */
+    public static CardSet fromCardList(CardList cards) {
+        return new CardSet(maskOf(cards));
+    }
+
+    /**
+     * A method for adding the specified card to this set.
+     * @param card the card to be added
+     * @return true if this set did not already contain the card
+     */
+    public boolean add(Card card) {
+        long bit = 1L << indexOf(card);
+        boolean added = (mask & bit) == 0;
+        mask |= bit;
+        return added;
+    }
+
+    /**
+     * A method for removing the specified card from this set.
+     * @param card the card to be removed
+     * @return true if this set contained the card
+     */
+    public boolean remove(Card card) {
+        long bit = 1L << indexOf(card);
+        boolean removed = (mask & bit) != 0;
+        mask &= ~bit;
+        return removed;
+    }
+
+    /**
+     * A method for removing all cards from this set.
+     */
+    public void clear() {
+        mask = 0L;
+    }
+
+    /**
+     * A method for checking if this set contains the specified card.
+     * @param card the card whose presence is to be tested
+     * @return true if this set contains the card, false otherwise
+     */
+    public boolean contains(Card card) {
+        return (mask & (1L << indexOf(card))) != 0;
+    }
+
+    /**
+     * A method for checking if this set contains the card with the specified suit and rank.
+     * @param suit an integer between 0 and 3 specifying the suit of the card
+     * @param rank an integer between 0 and 12 specifying the rank of the card
+     * @return true if this set contains the card, false otherwise
+     */
+    public boolean contains(int suit, int rank) {
+        return (mask & (1L << indexOf(suit, rank))) != 0;
+    }
+
+    /**
+     * A method for retrieving the number of cards in this set.
+     * @return the number of cards in this set
+     */
+    public int size() {
+        return Long.bitCount(mask);
+    }
+
+    /**
+     * A method for checking if this set is empty.
+     * @return true if this set contains no cards, false otherwise
+     */
+    public boolean isEmpty() {
+        return mask == 0L;
+    }
+
+    /**
+     * A method for retrieving the mask of this set.
+     * @return a mask with one bit set for each card in this set
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * A method for converting this set to a list of Big Two cards, sorted in ascending order.
+     * @return a list of the cards in this set
+     */
+    public CardList toCardList() {
+        CardList cards = new CardList();
+        for (long m = mask; m != 0; m &= m - 1) {
+            int index = Long.numberOfTrailingZeros(m);
+            cards.addCard(BigTwoCard.of(index));
+        }
+        return cards;
+    }
+
+    /**
+     * A method for returning a string representation of the cards in this set.
+     * @return a string representation of the cards in this set
+     */
+    public String toString() {
+        return toCardList().toString();
+    }
+}
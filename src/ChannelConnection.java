@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * This class is used by a non-blocking server to exchange card game messages
+ * with a client over a SocketChannel registered with a Selector. Incoming
+ * bytes are collected in a read buffer until a whole frame has arrived, and
+ * outgoing frames are queued until the channel can accept them.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class ChannelConnection implements ClientConnection {
+	// the channel of this connection
+	private final SocketChannel channel;
+	// the key of the channel in the selector
+	private final SelectionKey key;
+	// the address of the client, kept for messages after the channel is closed
+	private final SocketAddress remoteAddress;
+	// the bytes received but not yet decoded
+	private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+	// the frames waiting to be written
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+	// the maximum number of frames waiting to be written
+	private final int capacity = OverflowPolicy.getDefaultCapacity();
+	// what to do with a message when the write queue is full
+	private final OverflowPolicy policy = OverflowPolicy.getDefault();
+	// the codec of the frames, or null until the client sends its magic number
+	private MessageCodec codec = null;
+
+	/**
+	 * Creates and returns an instance of the ChannelConnection class.
+	 * 
+	 * @param channel
+	 *            the channel of this connection, in non-blocking mode
+	 * @param key
+	 *            the key of the channel in the selector
+	 */
+	public ChannelConnection(SocketChannel channel, SelectionKey key) {
+		this.channel = channel;
+		this.key = key;
+		this.remoteAddress = channel.socket().getRemoteSocketAddress();
+	}
+
+	/**
+	 * Returns the channel of this connection.
+	 * 
+	 * @return the channel of this connection
+	 */
+	public SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Returns the codec of this connection.
+	 * 
+	 * @return the codec of the frames, or null if the client has not sent its
+	 *         magic number yet
+	 */
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Reads the bytes available on the channel into the read buffer.
+	 * 
+	 * @return the number of bytes read, or -1 if the client has closed the
+	 *         connection
+	 * @throws IOException
+	 *             if the bytes cannot be read
+	 */
+	public int read() throws IOException {
+		if (!readBuffer.hasRemaining()) {
+			if (readBuffer.capacity() >= MessageCodec.MAX_FRAME_LENGTH + 4) {
+				throw new IOException("Frame too long");
+			}
+			ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+			readBuffer.flip();
+			larger.put(readBuffer);
+			readBuffer = larger;
+		}
+		return channel.read(readBuffer);
+	}
+
+	/**
+	 * Returns the magic number sent by the client, if all of its four bytes
+	 * have arrived. The magic number is removed from the read buffer.
+	 * 
+	 * @return the magic number, or 0 if fewer than four bytes have arrived
+	 */
+	public int takeMagic() {
+		if (readBuffer.position() < 4) {
+			return 0;
+		}
+		readBuffer.flip();
+		int magic = readBuffer.getInt();
+		readBuffer.compact();
+		return magic;
+	}
+
+	/**
+	 * Removes and returns all bytes in the read buffer.
+	 * 
+	 * @return the bytes received but not yet decoded
+	 */
+	public byte[] takeBuffered() {
+		readBuffer.flip();
+		byte[] bytes = new byte[readBuffer.remaining()];
+		readBuffer.get(bytes);
+		readBuffer.clear();
+		return bytes;
+	}
+
+	/**
+	 * Accepts the specified codec for this connection, and acknowledges it by
+	 * sending its magic number back to the client.
+	 * 
+	 * @param codec
+	 *            the codec requested by the client
+	 */
+	public void acceptCodec(MessageCodec codec) {
+		this.codec = codec;
+		ByteBuffer ack = ByteBuffer.allocate(4);
+		ack.putInt(codec.getMagic());
+		ack.flip();
+		enqueue(ack);
+	}
+
+	/**
+	 * Decodes the next whole frame in the read buffer.
+	 * 
+	 * @return the next message, or null if no whole frame has arrived
+	 * @throws IOException
+	 *             if the frame is not a valid message
+	 */
+	public CardGameMessage nextMessage() throws IOException {
+		if (codec == null || readBuffer.position() < 4) {
+			return null;
+		}
+		int length = readBuffer.getInt(0);
+		if (length < 0 || length > MessageCodec.MAX_FRAME_LENGTH) {
+			throw new IOException("Invalid frame length " + length);
+		}
+		if (readBuffer.position() < 4 + length) {
+			return null;
+		}
+		CardGameMessage message = codec.decode(readBuffer.array(), 4, length);
+		readBuffer.flip();
+		readBuffer.position(4 + length);
+		readBuffer.compact();
+		return message;
+	}
+
+	/**
+	 * Queues the specified message to be sent to the client. If the write
+	 * queue is full, the overflow policy decides whether the message is
+	 * dropped or the client is to be disconnected.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be encoded, or if the queue is full and
+	 *             the client is to be disconnected
+	 */
+	public void sendMessage(CardGameMessage message) throws IOException {
+		synchronized (writeQueue) {
+			if (writeQueue.size() >= capacity) {
+				policy.overflow(message, this);
+				return;
+			}
+		}
+		byte[] bytes = codec.encode(message);
+		ByteBuffer frame = ByteBuffer.allocate(4 + bytes.length);
+		frame.putInt(bytes.length);
+		frame.put(bytes);
+		frame.flip();
+		enqueue(frame);
+	}
+
+	/**
+	 * Queues a message which is broadcast to many connections, as a read-only
+	 * view of the frame shared by all of them.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be encoded, or if the queue is full and
+	 *             the client is to be disconnected
+	 */
+	public void sendMessage(SharedMessage message) throws IOException {
+		synchronized (writeQueue) {
+			if (writeQueue.size() >= capacity) {
+				policy.overflow(message.getMessage(), this);
+				return;
+			}
+		}
+		enqueue(message.getFrameBuffer(codec));
+	}
+
+	/**
+	 * Adds a buffer to the write queue and asks the selector to report when
+	 * the channel is writable.
+	 * 
+	 * @param buffer
+	 *            the bytes to be written
+	 */
+	private void enqueue(ByteBuffer buffer) {
+		synchronized (writeQueue) {
+			writeQueue.add(buffer);
+		}
+		if (key.isValid()) {
+			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			key.selector().wakeup();
+		}
+	}
+
+	/**
+	 * Writes as much of the write queue as the channel accepts, and stops
+	 * asking for writability once the queue is empty. Called by the selector
+	 * thread when the channel is writable.
+	 * 
+	 * @throws IOException
+	 *             if the bytes cannot be written
+	 */
+	public void flush() throws IOException {
+		synchronized (writeQueue) {
+			while (!writeQueue.isEmpty()) {
+				ByteBuffer buffer = writeQueue.peek();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					return;
+				}
+				writeQueue.poll();
+			}
+			key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	/**
+	 * Returns the address of the remote end of this connection.
+	 * 
+	 * @return the address of the remote end of this connection
+	 */
+	public SocketAddress getRemoteSocketAddress() {
+		return remoteAddress;
+	}
+
+	/**
+	 * Returns whether the messages go over a plain object stream, which is
+	 * never the case, as the frames of a channel always use a codec.
+	 * 
+	 * @return false
+	 */
+	public boolean isObjectStream() {
+		return false;
+	}
+
+	/**
+	 * Closes this connection.
+	 */
+	public void close() {
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * An interface for a network connection over which card game messages are
+ * exchanged, used by the server for each of its clients.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public interface ClientConnection {
+	/**
+	 * Sends the specified message over this connection.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be sent
+	 */
+	public void sendMessage(CardGameMessage message) throws IOException;
+
+	/**
+	 * Sends a message which is broadcast to many connections, reusing the
+	 * bytes already encoded for the other connections where possible.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be sent
+	 */
+	public void sendMessage(SharedMessage message) throws IOException;
+
+	/**
+	 * Returns the address of the remote end of this connection.
+	 * 
+	 * @return the address of the remote end of this connection
+	 */
+	public SocketAddress getRemoteSocketAddress();
+
+	/**
+	 * Returns whether the messages go over a plain object stream rather than
+	 * a codec, as with clients which predate codecs. Such a client expects the
+	 * data of a MOVE message to be the indices of the cards selected.
+	 * 
+	 * @return true if the messages go over a plain object stream
+	 */
+	public boolean isObjectStream();
+
+	/**
+	 * Closes this connection.
+	 */
+	public void close();
+}
@@ -1,3 +1,7 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * This class is used to represent a deck of cards in general card games.
  * 
@@ -5,7 +9,9 @@
  */
 public class Deck extends CardList {
 	private static final long serialVersionUID = -3886066435694112173L;
-	
+	// the seed of the last shuffle, or null if it was not seeded
+	private transient Long seed = null;
+
 	/**
 	 * Creates and returns an instance of the Deck class.
 	 */
@@ -27,15 +33,65 @@ public class Deck extends CardList {
 	}
 
 	/**
-	 * Shuffles the deck of cards.
+	 * Shuffles the deck of cards with the random numbers of the current
+	 * thread, so that every order is equally likely.
 	 */
 	public void shuffle() {
-		for (int i = 0; i < this.size(); i++) {
-			int j = (int) (Math.random() * this.size());
-			if (i != j) {
-				Card card = setCard(i, getCard(j));
-				setCard(j, card);
-			}
+		shuffle(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Shuffles the deck of cards with the specified source of random numbers,
+	 * e.g. a SplittableRandom for simulations or a SecureRandom for ranked
+	 * play, so that every order is equally likely.
+	 * 
+	 * @param random
+	 *            the source of random numbers
+	 */
+	public void shuffle(RandomGenerator random) {
+		this.seed = null;
+		super.shuffle(random);
+	}
+
+	/**
+	 * Shuffles the deck of cards with a SplittableRandom created from the
+	 * specified seed, and records the seed, so that the same shuffle of a deck
+	 * in the same order can be replayed. A seed only selects one of 2^64
+	 * orders, out of the 52! orders of a deck of 52 cards.
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void shuffle(long seed) {
+		shuffle(new SplittableRandom(seed));
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the seed of the last shuffle of this deck.
+	 * 
+	 * @return the seed of the last shuffle, or null if the deck was not
+	 *         shuffled with a seed
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Shuffles an array of card indices with the Fisher-Yates algorithm,
+	 * without creating any object, e.g. to deal many decks in a simulation.
+	 * 
+	 * @param cards
+	 *            the indices of the cards
+	 * @param random
+	 *            the source of random numbers
+	 */
+	public static void shuffle(byte[] cards, RandomGenerator random) {
+		for (int i = cards.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			byte card = cards[i];
+			cards[i] = cards[j];
+			cards[j] = card;
 		}
 	}
 }
@@ -14,29 +14,6 @@ public class Flush extends Hand {
         super(player, cards);
     }
 
-    /**
-     * An override method for checking if the flush can beat another hand of cards
-     * @param hand the competing hand of this hand
-     * @return true if the hand can beat the competing hand
-     */
-    @Override
-    public boolean beats(Hand hand) {
-        if (hand.getType() == "Straight") {
-            return true;
-        }
-        if (hand.getType() == "Flush") {
-            if (this.getTopCard().getSuit() > hand.getTopCard().getSuit()) {
-                return true;
-            }
-            if (this.getTopCard().getSuit() == hand.getTopCard().getSuit()) {
-                if (this.getTopCard().compareTo(hand.getTopCard()) == 1) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /**
      * A method for checking if the hand of flush is valid
      * @return true if the flush is valid, false otherwise
@@ -14,54 +14,6 @@ public class FullHouse extends Hand {
         super(player, cards);
     }
 
-    @Override
-    /**
-     * A method for getting the top card of the hand of full house
-     * @return the top card of the hand of full house
-     */
-    public Card getTopCard() {
-        if (this.isValid()) {
-            this.sort();
-            Card topCard;
-            int start;
-            int end;
-            if (this.getCard(0).getRank() == this.getCard(2).getRank()) {
-                start = 1;
-                end = 3;
-                topCard = this.getCard(0);
-            } else {
-                start = 3;
-                end = 5;
-                topCard = this.getCard(2);
-            }
-            for (int i = start; i < end; i++) {
-                if (this.getCard(i).getRank() > topCard.getRank()) {
-                    topCard = this.getCard(i);
-                }
-            }
-            return topCard;
-        }
-        return null;
-    }
-
-    /**
-     * An override method for checking if the FullHouse can beat another hand of cards
-     * @param hand the competing hand of this hand
-     * @return true if the FullHouse can beat the competing hand
-     */
-    @Override
-    public boolean beats(Hand hand) {
-        if (hand.getType() == "Straight" || hand.getType() == "Flush") {
-            return true;
-        }
-        if (hand.getType() == "FullHouse") {
-            if (this.getTopCard().compareTo(hand.getTopCard()) == 1) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      *  A method for checking if this is a valid hand of full house
      *  @return true if this is a valid hand of full house, false otherwise 
@@ -5,6 +5,7 @@
  */
 abstract class Hand extends CardList {
     private CardGamePlayer player; // the player who plays this hand
+    private final int key; // the strength key of the cards, computed once by HandClassifier
 
     /**
      * A constructor for building a hand with the specified player and list of cards.
@@ -18,6 +19,7 @@ abstract class Hand extends CardList {
         for (int i = 0; i < cards.size(); i++) {
             this.addCard(cards.getCard(i));
         }
+        this.key = HandClassifier.classify(this);
     }
 
     /**
@@ -26,14 +28,23 @@ abstract class Hand extends CardList {
      */
     public CardGamePlayer getPlayer() {return player;}
 
+    /**
+     * A method for retrieving the strength key of this hand.
+     * @return the key computed by HandClassifier when this hand was built, or HandClassifier.INVALID
+     */
+    public int getKey() {return key;}
+
     /**
      * A method for retrieving the top card of this hand.
      * @return the top card of this hand
      */
     public Card getTopCard() {
+        if (key != HandClassifier.INVALID) {
+            return BigTwoCard.of(HandClassifier.getTopOrdinal(key));
+        }
         Card topCard = this.getCard(0);
         for (int i = 1; i < this.size(); i++) {
-            if (this.getCard(i).compareTo(topCard) == 1) {
+            if (this.getCard(i).compareTo(topCard) > 0) {
                 topCard = this.getCard(i);
             }
         }
@@ -42,17 +53,13 @@ abstract class Hand extends CardList {
 
     /**
      * A method for checking if this hand beats a specified hand.
+     * Both hands must be valid and of the same size, and the hands are then ranked by their keys.
      * @param hand
      * 			the competing hand of this hand
      * @return true if this hand beats the specified hand, false otherwise
      */
     public boolean beats(Hand hand) {
-        if (this.getType() == hand.getType()) {
-            if (this.getTopCard().compareTo(hand.getTopCard()) == 1) {
-                return true;
-            }
-        }
-        return false;
+        return this.size() == hand.size() && HandClassifier.beats(key, hand.key);
     }
 
     /**
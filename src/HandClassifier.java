@@ -0,0 +1,200 @@
+/**
+ * The HandClassifier class is used to classify a set of cards as a Big Two hand in a single pass.
+ * A hand is described by an integer key, made up of the category of the hand, the suit of a flush
+ * and the ordinal of the top card, so that a valid hand beats another hand of the same size
+ * exactly when its key is greater.
+ * @author Zhou Jingran
+ *
+ */
+public class HandClassifier {
+    public static final int INVALID = -1; // the key of a set of cards which is not a valid hand
+    public static final int SINGLE = 0;
+    public static final int PAIR = 1;
+    public static final int TRIPLE = 2;
+    public static final int STRAIGHT = 3;
+    public static final int FLUSH = 4;
+    public static final int FULL_HOUSE = 5;
+    public static final int QUAD = 6;
+    public static final int STRAIGHT_FLUSH = 7;
+
+    private static final String[] TYPES = {"Single", "Pair", "Triple", "Straight",
+            "Flush", "FullHouse", "Quad", "StraightFlush"}; // the types as returned by Hand.getType()
+
+    /**
+     * A private constructor, as this class only has static methods.
+     */
+    private HandClassifier() {}
+
+    /**
+     * A method for classifying the specified list of cards.
+     * @param cards the list of cards
+     * @return the key of the hand composed by the cards, or INVALID if no valid hand can be composed
+     */
+    public static int classify(CardList cards) {
+        long mask = CardSet.maskOf(cards);
+        if (Long.bitCount(mask) != cards.size()) {
+            return INVALID;
+        }
+        return classify(mask);
+    }
+
+    /**
+     * A method for classifying the cards in the specified mask.
+     * @param mask a mask with one bit set for each card, as in a CardSet
+     * @return the key of the hand composed by the cards, or INVALID if no valid hand can be composed
+     */
+    public static int classify(long mask) {
+        int size = Long.bitCount(mask);
+        int top = 63 - Long.numberOfLeadingZeros(mask);
+        switch (size) {
+            case 1:
+                return key(SINGLE, 0, top);
+            case 2:
+            case 3:
+                if (Long.numberOfTrailingZeros(mask) >> 2 != top >> 2) {
+                    return INVALID;
+                }
+                return key(size == 2 ? PAIR : TRIPLE, 0, top);
+            case 5:
+                return HandTable.isEnabled() ? HandTable.lookup(mask) : classifyFive(mask);
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * A method for classifying five cards without the lookup table.
+     * @param mask a mask with five bits set
+     * @return the key of the hand composed by the cards, or INVALID if no valid hand can be composed
+     */
+    static int classifyFive(long mask) {
+        int top = 63 - Long.numberOfLeadingZeros(mask);
+        // one bit per rank and one bit per suit present
+        int ranks = 0;
+        int suits = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            int index = Long.numberOfTrailingZeros(m);
+            ranks |= 1 << (index >> 2);
+            suits |= 1 << (index & 3);
+        }
+
+        int lowRank = Integer.numberOfTrailingZeros(ranks);
+        switch (Integer.bitCount(ranks)) {
+            case 2:
+                // four of a kind plus one, or three of a kind plus two
+                int highRank = 31 - Integer.numberOfLeadingZeros(ranks);
+                int lowCount = Long.bitCount((mask >>> (lowRank * 4)) & 0xF);
+                int mainRank = (lowCount >= 3) ? lowRank : highRank;
+                int mainTop = mainRank * 4 + 31 - Integer.numberOfLeadingZeros((int) (mask >>> (mainRank * 4)) & 0xF);
+                if (lowCount == 1 || lowCount == 4) {
+                    return key(QUAD, 0, mainTop);
+                }
+                return key(FULL_HOUSE, 0, mainTop);
+            case 5:
+                boolean straight = (ranks >>> lowRank) == 0x1F;
+                boolean flush = Integer.bitCount(suits) == 1;
+                if (straight && flush) {
+                    return key(STRAIGHT_FLUSH, 0, top);
+                } else if (straight) {
+                    return key(STRAIGHT, 0, top);
+                } else if (flush) {
+                    return key(FLUSH, Integer.numberOfTrailingZeros(suits), top);
+                }
+                return INVALID;
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * A method for building a key.
+     * @param category the category of the hand
+     * @param suit the suit of a flush, or 0 for other categories
+     * @param top the ordinal of the top card
+     * @return the key of the hand
+     */
+    private static int key(int category, int suit, int top) {
+        return category << 8 | suit << 6 | top;
+    }
+
+    /**
+     * A method for retrieving the category of the hand with the specified key.
+     * @param key the key of the hand
+     * @return the category of the hand, or INVALID if the key is INVALID
+     */
+    public static int getCategory(int key) {
+        return key >> 8;
+    }
+
+    /**
+     * A method for retrieving the ordinal of the top card of the hand with the specified key.
+     * @param key the key of a valid hand
+     * @return the ordinal of the top card, between 0 and 51
+     */
+    public static int getTopOrdinal(int key) {
+        return key & 63;
+    }
+
+    /**
+     * A method for retrieving the number of cards in the hand with the specified key.
+     * @param key the key of the hand
+     * @return the number of cards in the hand, or 0 if the key is INVALID
+     */
+    public static int getSize(int key) {
+        int category = getCategory(key);
+        if (category < 0) {
+            return 0;
+        }
+        return category <= TRIPLE ? category + 1 : 5;
+    }
+
+    /**
+     * A method for retrieving the type of the hand with the specified key.
+     * @param key the key of a valid hand
+     * @return a string specifying the type of the hand, as returned by Hand.getType()
+     */
+    public static String getType(int key) {
+        return TYPES[getCategory(key)];
+    }
+
+    /**
+     * A method for checking if a hand beats another hand, given their keys.
+     * @param key the key of the hand
+     * @param otherKey the key of the competing hand
+     * @return true if both hands are valid, have the same size and the hand is stronger
+     */
+    public static boolean beats(int key, int otherKey) {
+        return key != INVALID && otherKey != INVALID
+                && getSize(key) == getSize(otherKey) && key > otherKey;
+    }
+
+    /**
+     * A method for creating the hand of the specified category.
+     * @param category the category of the hand
+     * @param player the player who plays the hand
+     * @param cards the cards that compose the hand
+     * @return the hand, or null if the category is INVALID
+     */
+    public static Hand createHand(int category, CardGamePlayer player, CardList cards) {
+        switch (category) {
+            case SINGLE:
+                return new Single(player, cards);
+            case PAIR:
+                return new Pair(player, cards);
+            case TRIPLE:
+                return new Triple(player, cards);
+            case STRAIGHT:
+                return new Straight(player, cards);
+            case FLUSH:
+                return new Flush(player, cards);
+            case FULL_HOUSE:
+                return new FullHouse(player, cards);
+            case QUAD:
+                return new Quad(player, cards);
+            case STRAIGHT_FLUSH:
+                return new StraightFlush(player, cards);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Arrays;
+
+/**
+ * The HandPlanner class is used to split a hand of a Big Two card game into the fewest valid hands
+ * (singles, pairs, triples and five-card hands), i.e. the fewest turns in which a player could play all
+ * his/her cards if nobody beat him/her. The cards of the hand are numbered from 0 to 12, and the plan
+ * of every subset of them is found by dynamic programming over these 13-bit masks: the lowest card of
+ * a subset must be played in one of the valid hands holding it, so the best of those hands, plus the
+ * best plan of the cards left, is the best plan of the subset. Plans are memoized, and stay valid as
+ * cards leave the hand, so a player's plans are mostly looked up during a game.
+ * It also chooses moves for a cheap computer player, which keeps to its plan. A planner is used by one
+ * thread at a time; forThread() returns one for the current thread.
+ * @author Zhou Jingran
+ *
+ */
+public class HandPlanner {
+    public static final int MAX_CARDS = 13; // the maximum number of cards of a hand
+    private static final int DANGER = 3; // the number of cards of an opponent who may soon win
+    private static final ThreadLocal<HandPlanner> PLANNERS = ThreadLocal.withInitial(HandPlanner::new);
+
+    private long hand = 0L; // the mask of the cards of the hand being planned
+    private int numOfCards = 0; // the number of cards of the hand
+    private final int[] cards = new int[MAX_CARDS]; // the index of each card of the hand, as in a CardSet
+    private final long[] moves = new long[MoveGenerator.MAX_MOVES]; // a buffer for the valid hands
+    private final int[] localHands = new int[MoveGenerator.MAX_MOVES]; // the valid hands, by their lowest card
+    private final int[] from = new int[MAX_CARDS + 1]; // the first valid hand with each lowest card
+    private final byte[] best = new byte[1 << MAX_CARDS]; // the fewest hands of each subset
+    private final short[] choice = new short[1 << MAX_CARDS]; // the hand with the lowest card in that plan
+    private final int[] stamps = new int[1 << MAX_CARDS]; // the hand for which each subset was planned
+    private int stamp = 0; // the stamp of the hand being planned
+
+    /**
+     * A method for retrieving the planner of the current thread.
+     * @return the planner of the current thread
+     */
+    public static HandPlanner forThread() {
+        return PLANNERS.get();
+    }
+
+    /**
+     * A method for finding the fewest valid hands into which a hand can be split.
+     * @param hand the mask of the cards of the hand, at most 13 cards
+     * @return the fewest number of turns to play all the cards
+     * @throws IllegalArgumentException if the hand has more than 13 cards
+     */
+    public int getNumOfMoves(long hand) {
+        return solve(toLocal(hand));
+    }
+
+    /**
+     * A method for splitting a hand into the fewest valid hands.
+     * @param hand the mask of the cards of the hand, at most 13 cards
+     * @param plan a buffer for the masks of the valid hands, which should hold 13 masks
+     * @return the number of valid hands written to the buffer, in the order of their lowest cards
+     * @throws IllegalArgumentException if the hand has more than 13 cards
+     */
+    public int getPlan(long hand, long[] plan) {
+        int subset = toLocal(hand);
+        solve(subset);
+        int count = 0;
+        for (int s = subset; s != 0; s &= ~choice[s]) {
+            plan[count++] = toMask(choice[s]);
+        }
+        return count;
+    }
+
+    /**
+     * A method for choosing the move of the current player by the plan of his/her hand. A player who
+     * leads plays the hand of the plan holding his/her lowest card. Otherwise he/she plays the weakest
+     * move which leaves the fewest turns, if it keeps to the plan, empties the hand, or an opponent has
+     * few cards left, and passes if not.
+     * @param game the game, which must not be modified
+     * @param moves the legal moves of the current player, with MoveGenerator.PASS last if passing is allowed
+     * @param numOfMoves the number of legal moves, which is at least 1
+     * @return one of the legal moves
+     */
+    public long chooseMove(BigTwoGame game, long[] moves, int numOfMoves) {
+        int currentIdx = game.getCurrentIdx();
+        long hand = game.getPlayerList().get(currentIdx).getCardSet().getMask();
+        int subset = toLocal(hand);
+        int numOfTurns = solve(subset);
+        boolean canPass = moves[numOfMoves - 1] == MoveGenerator.PASS;
+        if (!canPass) {
+            // a lead, or the first move, whose 3 of Diamonds is the lowest card of the player
+            return toMask(choice[subset]);
+        }
+
+        long bestMove = MoveGenerator.PASS;
+        int bestTurns = Integer.MAX_VALUE;
+        int bestKey = Integer.MAX_VALUE;
+        for (int i = 0; i < numOfMoves; i++) {
+            if (moves[i] != MoveGenerator.PASS) {
+                int turns = solve(subset & ~toLocal(moves[i]));
+                int key = HandClassifier.classify(moves[i]);
+                if (turns < bestTurns || turns == bestTurns && key < bestKey) {
+                    bestMove = moves[i];
+                    bestTurns = turns;
+                    bestKey = key;
+                }
+            }
+        }
+        if (bestTurns < numOfTurns || bestTurns == 0) {
+            return bestMove;
+        }
+        for (int i = 0; i < game.getNumOfPlayers(); i++) {
+            if (i != currentIdx && game.getPlayerList().get(i).getNumOfCards() <= DANGER) {
+                return bestMove;
+            }
+        }
+        return MoveGenerator.PASS;
+    }
+
+    /**
+     * A method for finding the fewest valid hands into which a subset of the hand can be split.
+     * @param subset the subset, as a mask of the numbers of its cards
+     * @return the fewest number of valid hands
+     */
+    private int solve(int subset) {
+        if (subset == 0) {
+            return 0;
+        }
+        if (stamps[subset] == stamp) {
+            return best[subset];
+        }
+        int lowest = Integer.numberOfTrailingZeros(subset);
+        int bound = (Integer.bitCount(subset) + 4) / 5; // no plan has fewer hands
+        int min = Integer.MAX_VALUE;
+        int chosen = 1 << lowest;
+        for (int k = from[lowest]; k < from[lowest + 1] && min > bound; k++) {
+            int h = localHands[k];
+            if ((h & ~subset) == 0) {
+                int n = 1 + solve(subset & ~h);
+                // of two plans with as many hands, the one playing more cards with the lowest card is kept
+                if (n < min || n == min && Integer.bitCount(h) > Integer.bitCount(chosen)) {
+                    min = n;
+                    chosen = h;
+                }
+            }
+        }
+        stamps[subset] = stamp;
+        best[subset] = (byte) min;
+        choice[subset] = (short) chosen;
+        return min;
+    }
+
+    /**
+     * A method for converting a mask of cards to the numbers of the cards in the hand being planned,
+     * planning a new hand if the cards are not all in it.
+     * @param mask the mask of the cards, as in a CardSet
+     * @return the mask of the numbers of the cards
+     * @throws IllegalArgumentException if the cards are not in the hand and are more than 13
+     */
+    private int toLocal(long mask) {
+        if ((mask & ~hand) != 0) {
+            setHand(mask);
+        }
+        int local = 0;
+        for (int i = 0; i < numOfCards; i++) {
+            local |= (int) (mask >>> cards[i] & 1) << i;
+        }
+        return local;
+    }
+
+    /**
+     * A method for converting the numbers of cards in the hand being planned to a mask of the cards.
+     * @param local the mask of the numbers of the cards
+     * @return the mask of the cards, as in a CardSet
+     */
+    private long toMask(int local) {
+        long mask = 0L;
+        for (int m = local; m != 0; m &= m - 1) {
+            mask |= 1L << cards[Integer.numberOfTrailingZeros(m)];
+        }
+        return mask;
+    }
+
+    /**
+     * A method for starting to plan a new hand: its cards are numbered, and its valid hands are listed
+     * by their lowest cards.
+     * @param hand the mask of the cards of the hand
+     * @throws IllegalArgumentException if the hand has more than 13 cards
+     */
+    private void setHand(long hand) {
+        if (Long.bitCount(hand) > MAX_CARDS) {
+            throw new IllegalArgumentException("A hand has at most " + MAX_CARDS + " cards");
+        }
+        this.hand = hand;
+        numOfCards = 0;
+        for (long m = hand; m != 0; m &= m - 1) {
+            cards[numOfCards++] = Long.numberOfTrailingZeros(m);
+        }
+        int numOfHands = MoveGenerator.generate(hand, HandClassifier.INVALID, 0L, false, moves);
+        for (int k = 0; k < numOfHands; k++) {
+            moves[k] = toLocal(moves[k]);
+        }
+
+        // lists the valid hands by their lowest cards
+        int count = 0;
+        for (int lowest = 0; lowest < numOfCards; lowest++) {
+            from[lowest] = count;
+            for (int k = 0; k < numOfHands; k++) {
+                if (Long.numberOfTrailingZeros(moves[k]) == lowest) {
+                    localHands[count++] = (int) moves[k];
+                }
+            }
+        }
+        from[numOfCards] = count;
+
+        if (++stamp == 0) {
+            // the stamps have wrapped around, so every subset is forgotten
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The HandTable class is used to look up the key of any five cards in a precomputed table.
+ * The table has one entry for each of the C(52, 5) = 2,598,960 sets of five cards, indexed by
+ * the colexicographic rank of the set, and takes about 5 MB.
+ * <p>
+ * The table is only used when the system property "bigtwo.handTable" is set. If it is "true",
+ * the table is built in memory the first time it is used; any other value is taken as the path
+ * of a file from which the table is loaded, and to which it is written if the file does not exist.
+ * @author Zhou Jingran
+ *
+ */
+public class HandTable {
+    public static final String PROPERTY = "bigtwo.handTable"; // the system property enabling the table
+    public static final int SIZE = 2598960; // the number of sets of five cards
+
+    private static final String SETTING = System.getProperty(PROPERTY, "false");
+    private static final boolean ENABLED = !SETTING.equals("false");
+    private static final int[][] BINOMIALS = new int[52][6]; // BINOMIALS[n][k] = C(n, k)
+
+    static {
+        for (int n = 0; n < 52; n++) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k < 6; k++) {
+                BINOMIALS[n][k] = (n == 0) ? 0 : BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+            }
+        }
+    }
+
+    /**
+     * A private constructor, as this class only has static methods.
+     */
+    private HandTable() {}
+
+    /**
+     * A holder class, so the table is only built or loaded the first time it is used.
+     */
+    private static class Holder {
+        static final short[] KEYS = load();
+    }
+
+    /**
+     * A method for checking if the table is enabled by the system property.
+     * @return true if the table is enabled
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * A method for looking up the key of the specified five cards.
+     * @param mask a mask with five bits set, as in a CardSet
+     * @return the key of the hand composed by the cards, or HandClassifier.INVALID
+     */
+    public static int lookup(long mask) {
+        return Holder.KEYS[indexOf(mask)];
+    }
+
+    /**
+     * A method for computing the colexicographic rank of the specified five cards.
+     * @param mask a mask with five bits set
+     * @return an index between 0 and SIZE - 1
+     */
+    static int indexOf(long mask) {
+        int index = 0;
+        for (int k = 1; k <= 5; k++) {
+            index += BINOMIALS[Long.numberOfTrailingZeros(mask)][k];
+            mask &= mask - 1;
+        }
+        return index;
+    }
+
+    /**
+     * A method for building the table by classifying every set of five cards in colexicographic order.
+     * @return the table
+     */
+    static short[] build() {
+        short[] keys = new short[SIZE];
+        int index = 0;
+        for (int e = 4; e < 52; e++) {
+            for (int d = 3; d < e; d++) {
+                for (int c = 2; c < d; c++) {
+                    for (int b = 1; b < c; b++) {
+                        for (int a = 0; a < b; a++) {
+                            long mask = 1L << a | 1L << b | 1L << c | 1L << d | 1L << e;
+                            keys[index++] = (short) HandClassifier.classifyFive(mask);
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * A method for building the table, or loading it from the file named by the system property.
+     * If the file cannot be read, the table is built and the file is written. The table is always
+     * built in memory if it is not enabled, e.g. when lookup() is called by a benchmark.
+     * @return the table
+     */
+    private static short[] load() {
+        if (!ENABLED || SETTING.equals("true")) {
+            return build();
+        }
+        File file = new File(SETTING);
+        if (file.length() == SIZE * 2L) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                short[] keys = new short[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    keys[i] = in.readShort();
+                }
+                return keys;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        short[] keys = build();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (int i = 0; i < SIZE; i++) {
+                out.writeShort(keys[i]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return keys;
+    }
+}
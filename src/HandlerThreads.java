@@ -0,0 +1,86 @@
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class is used to create the threads which serve network connections.
+ * If the system property "bigtwo.virtualThreads" is "true" and the Java
+ * runtime supports virtual threads (Java 21 or later), every thread is a
+ * virtual thread, so that tens of thousands of idle connections only cost
+ * memory; otherwise platform threads are used.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class HandlerThreads {
+	/**
+	 * The system property selecting virtual threads.
+	 */
+	public static final String PROPERTY = "bigtwo.virtualThreads";
+
+	// a boolean indicating if the threads are virtual, set by createFactory()
+	private static boolean virtual;
+	// the factory of the threads
+	private static final ThreadFactory FACTORY = createFactory();
+
+	/**
+	 * A private constructor, as this class only has static methods.
+	 */
+	private HandlerThreads() {
+	}
+
+	/**
+	 * Creates the factory of virtual threads, looked up by reflection so that
+	 * the game still compiles and runs on older versions of Java.
+	 * 
+	 * @return the factory of the threads
+	 */
+	private static ThreadFactory createFactory() {
+		if (Boolean.getBoolean(PROPERTY)) {
+			try {
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				ThreadFactory factory = (ThreadFactory) Class
+						.forName("java.lang.Thread$Builder").getMethod("factory")
+						.invoke(builder);
+				virtual = true;
+				return factory;
+			} catch (ReflectiveOperationException ex) {
+				System.err.println("Virtual threads are not supported by Java "
+						+ System.getProperty("java.version")
+						+ "; platform threads are used");
+			}
+		}
+		return Thread::new;
+	}
+
+	/**
+	 * Checks if the threads created are virtual threads.
+	 * 
+	 * @return true if the threads created are virtual threads
+	 */
+	public static boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Creates a thread for the specified task without starting it.
+	 * 
+	 * @param task
+	 *            the task to be run by the thread
+	 * @return the thread
+	 */
+	public static Thread newThread(Runnable task) {
+		return FACTORY.newThread(task);
+	}
+
+	/**
+	 * Creates and starts a thread for the specified task.
+	 * 
+	 * @param task
+	 *            the task to be run by the thread
+	 * @return the thread
+	 */
+	public static Thread start(Runnable task) {
+		Thread t = FACTORY.newThread(task);
+		t.start();
+		return t;
+	}
+}
@@ -0,0 +1,72 @@
+import java.io.IOException;
+
+/**
+ * An interface for encoding card game messages into frames sent over a network connection.
+ * A client which uses a codec sends the magic number of the codec when it connects, and the
+ * server replies with the same magic number if it accepts the codec. After that, every message
+ * is sent as a frame made up of the length of the encoded message followed by its bytes.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public interface MessageCodec {
+	/**
+	 * The first four bytes sent by a client which uses a plain ObjectOutputStream
+	 * instead of a codec (the stream magic number and version).
+	 */
+	public static final int OBJECT_STREAM_MAGIC = 0xACED0005;
+
+	/**
+	 * The maximum length of an encoded message.
+	 */
+	public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+	/**
+	 * Returns the magic number which identifies this codec.
+	 * 
+	 * @return the magic number which identifies this codec
+	 */
+	public int getMagic();
+
+	/**
+	 * Encodes the specified message.
+	 * 
+	 * @param message
+	 *            the message to be encoded
+	 * @return the bytes of the encoded message
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public byte[] encode(CardGameMessage message) throws IOException;
+
+	/**
+	 * Decodes a message.
+	 * 
+	 * @param data
+	 *            the array holding the encoded message
+	 * @param offset
+	 *            the index of the first byte of the encoded message
+	 * @param length
+	 *            the length of the encoded message
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the bytes are not a valid message
+	 */
+	public CardGameMessage decode(byte[] data, int offset, int length) throws IOException;
+
+	/**
+	 * Returns the codec with the specified magic number.
+	 * 
+	 * @param magic
+	 *            the magic number sent by a client
+	 * @return the codec with the magic number, or null if there is none
+	 */
+	public static MessageCodec forMagic(int magic) {
+		if (magic == BinaryCodec.MAGIC) {
+			return new BinaryCodec();
+		} else if (magic == SerializedCodec.MAGIC) {
+			return new SerializedCodec();
+		}
+		return null;
+	}
+}
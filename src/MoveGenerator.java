@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The MoveGenerator class is used to enumerate the legal moves of a player in a Big Two card game.
+ * Moves are returned as masks of the cards to be played, with one bit per card as in a CardSet,
+ * and a pass is returned as PASS. Only the combinations which form valid hands are visited:
+ * pairs and triples are built within a rank, straights rank by rank, flushes within a suit,
+ * and full houses and quads from the ranks holding enough cards.
+ * @author Zhou Jingran
+ *
+ */
+public class MoveGenerator {
+    public static final long PASS = 0L; // the move of passing the turn
+    public static final long THREE_OF_DIAMONDS = 1L; // the mask of the card which must be played first
+    public static final int MAX_MOVES = 1665; // enough for every move from a hand of up to 13 cards
+
+    /**
+     * A private constructor, as this class only has static methods.
+     */
+    private MoveGenerator() {}
+
+    /**
+     * A method for enumerating the legal moves of the specified player, given the hands on the table.
+     * The first move of a game must contain the 3 of Diamonds; a player whose hand was not beaten by
+     * anyone else may lead with any hand; otherwise the player must beat the last hand or pass.
+     * @param player the player who makes the move
+     * @param handsOnTable the list of hands played on the table
+     * @return the legal moves, with PASS last if passing is allowed
+     */
+    public static long[] generate(CardGamePlayer player, ArrayList<Hand> handsOnTable) {
+        long[] moves = new long[MAX_MOVES];
+        int count;
+        long hand = player.getCardSet().getMask();
+        if (handsOnTable.isEmpty()) {
+            count = generate(hand, HandClassifier.INVALID, THREE_OF_DIAMONDS, false, moves);
+        } else {
+            Hand lastHand = handsOnTable.get(handsOnTable.size() - 1);
+            if (lastHand.getPlayer() == player) {
+                count = generate(hand, HandClassifier.INVALID, 0L, false, moves);
+            } else {
+                count = generate(hand, lastHand.getKey(), 0L, true, moves);
+            }
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * A method for enumerating the legal moves from the specified cards into a buffer.
+     * It does not allocate, so it can be called at high rates by bots and servers.
+     * @param hand a mask of the cards held by the player
+     * @param lastKey the key of the hand to be beaten, or HandClassifier.INVALID if any hand may be played
+     * @param required a mask of the cards which every move must contain, or 0
+     * @param canPass true if passing is allowed
+     * @param moves a buffer for the moves, which should hold MAX_MOVES moves
+     * @return the number of moves written to the buffer
+     */
+    public static int generate(long hand, int lastKey, long required, boolean canPass, long[] moves) {
+        int size = HandClassifier.getSize(lastKey); // 0 if any size may be played
+        int count = 0;
+        if (size == 0 || size == 1) {
+            for (long m = hand; m != 0; m &= m - 1) {
+                count = add(m & -m, lastKey, required, moves, count);
+            }
+        }
+        if (size == 0 || size == 2 || size == 3) {
+            for (int rank = 0; rank < 13; rank++) {
+                long group = hand & (0xFL << (rank * 4));
+                if (size != 3) {
+                    count = addSubsets(group, 2, lastKey, required, moves, count);
+                }
+                if (size != 2) {
+                    count = addSubsets(group, 3, lastKey, required, moves, count);
+                }
+            }
+        }
+        if (size == 0 || size == 5) {
+            count = addFiveCardHands(hand, lastKey, required, moves, count);
+        }
+        if (canPass && count < moves.length) {
+            moves[count++] = PASS;
+        }
+        return count;
+    }
+
+    /**
+     * A method for adding every five-card hand which can be formed from the specified cards.
+     * @param hand a mask of the cards held by the player
+     * @param lastKey the key of the hand to be beaten, or HandClassifier.INVALID
+     * @param required a mask of the cards which every move must contain
+     * @param moves the buffer for the moves
+     * @param count the number of moves already in the buffer
+     * @return the number of moves in the buffer
+     */
+    private static int addFiveCardHands(long hand, int lastKey, long required, long[] moves, int count) {
+        // straights and straight flushes, choosing one card of each of five consecutive ranks
+        for (int low = 0; low + 5 <= 13; low++) {
+            long g0 = hand & (0xFL << (low * 4));
+            long g1 = hand & (0xFL << (low * 4 + 4));
+            long g2 = hand & (0xFL << (low * 4 + 8));
+            long g3 = hand & (0xFL << (low * 4 + 12));
+            long g4 = hand & (0xFL << (low * 4 + 16));
+            if (g0 == 0 || g1 == 0 || g2 == 0 || g3 == 0 || g4 == 0) {
+                continue;
+            }
+            for (long a = g0; a != 0; a &= a - 1) {
+                for (long b = g1; b != 0; b &= b - 1) {
+                    for (long c = g2; c != 0; c &= c - 1) {
+                        for (long d = g3; d != 0; d &= d - 1) {
+                            for (long e = g4; e != 0; e &= e - 1) {
+                                long move = (a & -a) | (b & -b) | (c & -c) | (d & -d) | (e & -e);
+                                count = add(move, lastKey, required, moves, count);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // flushes, skipping the straight flushes added above
+        for (int suit = 0; suit < 4; suit++) {
+            long suited = hand & (0x1111111111111L << suit);
+            if (Long.bitCount(suited) < 5) {
+                continue;
+            }
+            for (long a = suited; a != 0; a &= a - 1) {
+                for (long b = a & (a - 1); b != 0; b &= b - 1) {
+                    for (long c = b & (b - 1); c != 0; c &= c - 1) {
+                        for (long d = c & (c - 1); d != 0; d &= d - 1) {
+                            for (long e = d & (d - 1); e != 0; e &= e - 1) {
+                                long move = (a & -a) | (b & -b) | (c & -c) | (d & -d) | (e & -e);
+                                if (HandClassifier.getCategory(HandClassifier.classify(move)) == HandClassifier.FLUSH) {
+                                    count = add(move, lastKey, required, moves, count);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // full houses and quads, built from a rank with three or four cards
+        for (int rank = 0; rank < 13; rank++) {
+            long group = hand & (0xFL << (rank * 4));
+            int groupSize = Long.bitCount(group);
+            if (groupSize < 3) {
+                continue;
+            }
+            if (groupSize == 4) {
+                for (long m = hand & ~group; m != 0; m &= m - 1) {
+                    count = add(group | (m & -m), lastKey, required, moves, count);
+                }
+            }
+            int tripleBits = (int) (group >>> (rank * 4));
+            for (int other = 0; other < 13; other++) {
+                int pairBits = (int) (hand >>> (other * 4)) & 0xF;
+                if (other == rank || Integer.bitCount(pairBits) < 2) {
+                    continue;
+                }
+                for (int t = 0; t < 16; t++) {
+                    if (Integer.bitCount(t) != 3 || (t & ~tripleBits) != 0) {
+                        continue;
+                    }
+                    for (int p = 0; p < 16; p++) {
+                        if (Integer.bitCount(p) == 2 && (p & ~pairBits) == 0) {
+                            long move = (long) t << (rank * 4) | (long) p << (other * 4);
+                            count = add(move, lastKey, required, moves, count);
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A method for adding every subset of the specified size of a group of cards of the same rank.
+     * @param group a mask of the cards of one rank held by the player
+     * @param size the number of cards in each subset
+     * @param lastKey the key of the hand to be beaten, or HandClassifier.INVALID
+     * @param required a mask of the cards which every move must contain
+     * @param moves the buffer for the moves
+     * @param count the number of moves already in the buffer
+     * @return the number of moves in the buffer
+     */
+    private static int addSubsets(long group, int size, int lastKey, long required, long[] moves, int count) {
+        if (Long.bitCount(group) < size) {
+            return count;
+        }
+        int shift = Long.numberOfTrailingZeros(group) & ~3;
+        for (int s = 0; s < 16; s++) {
+            long move = (long) s << shift;
+            if (Integer.bitCount(s) == size && (move & group) == move) {
+                count = add(move, lastKey, required, moves, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A method for adding a valid hand to the buffer if it contains the required cards and beats the last hand.
+     * @param move the mask of the cards of the hand
+     * @param lastKey the key of the hand to be beaten, or HandClassifier.INVALID
+     * @param required a mask of the cards which every move must contain
+     * @param moves the buffer for the moves
+     * @param count the number of moves already in the buffer
+     * @return the number of moves in the buffer
+     */
+    private static int add(long move, int lastKey, long required, long[] moves, int count) {
+        if ((move & required) != required || count >= moves.length) {
+            return count;
+        }
+        if (lastKey != HandClassifier.INVALID && !HandClassifier.beats(HandClassifier.classify(move), lastKey)) {
+            return count;
+        }
+        moves[count] = move;
+        return count + 1;
+    }
+
+    /**
+     * A method for converting a move into the indices of the cards in the player's hand, as used by makeMove().
+     * @param player the player who makes the move
+     * @param move the mask of the cards to be played, or PASS
+     * @return the list of the indices of the cards, which is empty for a pass
+     */
+    public static int[] toCardIdx(CardGamePlayer player, long move) {
+        CardList cardsInHand = player.getCardsInHand();
+        int[] cardIdx = new int[Long.bitCount(move)];
+        int count = 0;
+        for (int i = 0; i < cardsInHand.size() && count < cardIdx.length; i++) {
+            if ((move & 1L << CardSet.indexOf(cardsInHand.getCard(i))) != 0) {
+                cardIdx[count++] = i;
+            }
+        }
+        return cardIdx;
+    }
+}
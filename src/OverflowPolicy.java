@@ -0,0 +1,70 @@
+import java.io.IOException;
+
+/**
+ * This enum lists what a server does with a message for a client whose
+ * outbound queue is full, i.e. a client which does not read its messages as
+ * fast as they are sent. The policy and the capacity of the queues are set by
+ * the system properties "bigtwo.overflow" ("drop-chat" by default, or
+ * "disconnect") and "bigtwo.queueCapacity" (1024 messages by default).
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public enum OverflowPolicy {
+	/**
+	 * Chat messages are dropped; any other message disconnects the client, as
+	 * the game cannot go on without it.
+	 */
+	DROP_CHAT,
+	/**
+	 * Any message disconnects the client.
+	 */
+	DISCONNECT;
+
+	/**
+	 * The system property selecting the policy.
+	 */
+	public static final String PROPERTY = "bigtwo.overflow";
+	/**
+	 * The system property setting the capacity of the outbound queues.
+	 */
+	public static final String CAPACITY = "bigtwo.queueCapacity";
+
+	/**
+	 * Returns the policy selected by the system property.
+	 * 
+	 * @return the policy selected by the system property
+	 */
+	public static OverflowPolicy getDefault() {
+		return "disconnect".equals(System.getProperty(PROPERTY)) ? DISCONNECT
+				: DROP_CHAT;
+	}
+
+	/**
+	 * Returns the capacity of the outbound queues set by the system property.
+	 * 
+	 * @return the maximum number of messages waiting for a client
+	 */
+	public static int getDefaultCapacity() {
+		return Integer.getInteger(CAPACITY, 1024);
+	}
+
+	/**
+	 * Applies this policy to a message which does not fit in a full queue.
+	 * 
+	 * @param message
+	 *            the message which does not fit
+	 * @param client
+	 *            the connection to the client
+	 * @throws IOException
+	 *             if the client is to be disconnected
+	 */
+	public void overflow(CardGameMessage message, ClientConnection client)
+			throws IOException {
+		if (this == DROP_CHAT && message.getType() == CardGameMessage.MSG) {
+			return;
+		}
+		throw new IOException("Outbound queue full for "
+				+ client.getRemoteSocketAddress());
+	}
+}
@@ -14,43 +14,6 @@ public class Quad extends Hand {
         super(player, cards);
     }
 
-    @Override
-    /**
-     * A method for retrieving the top card of this hand of quad.
-     * @return the top card of this hand of quad
-     */
-    public Card getTopCard() {
-        if (this.isValid()) {
-            this.sort();
-            Card topCard;
-            int start;
-            int end;
-            if (this.getCard(0).getRank() != this.getCard(1).getRank()) {
-                start = 2;
-                end = 5;
-                topCard = this.getCard(1);
-            } else {
-                start = 1;
-                end = 4;
-                topCard = this.getCard(0);
-            }
-            for (int i = start; i < end; i++) {
-                if (this.getCard(i).getRank() > topCard.getRank()) {
-                    topCard = this.getCard(i);
-                }
-            }
-            return topCard;
-        }
-        return null;
-    }
-
-    @Override
-    public boolean beats(Hand hand) {
-        if (hand.getType() == "Straight" || hand.getType() == "Flush" || hand.getType() == "FullHouse") {
-            return true;
-        }
-        return super.beats(hand);
-    }
     /**
      * A method for checking if this is a valid hand of quad.
      * @return true if this is a valid hand of quad, false otherwise
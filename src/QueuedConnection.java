@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * This class is used by a server to send messages to a client without
+ * waiting for the client to read them. Messages are encoded (or copied, for
+ * an object stream) when they are queued, so that later changes to the data
+ * of a message are not sent, and put in a bounded queue, which is drained by
+ * a writer thread of the connection, so a slow client only delays its own
+ * messages. When the queue is full, the overflow policy decides whether the
+ * message is dropped or the client is disconnected.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class QueuedConnection implements ClientConnection, Runnable {
+	// the connection to which the messages are written
+	private final SocketConnection connection;
+	// the messages waiting to be written, already encoded
+	private final ArrayBlockingQueue<SharedMessage> queue;
+	// what to do with a message which does not fit in the queue
+	private final OverflowPolicy policy;
+	// the thread writing the messages
+	private final Thread writer;
+	// a boolean indicating if the connection is closed
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates and returns an instance of the QueuedConnection class with the
+	 * capacity and overflow policy set by the system properties, and starts
+	 * its writer thread.
+	 * 
+	 * @param connection
+	 *            the connection to which the messages are written
+	 */
+	public QueuedConnection(SocketConnection connection) {
+		this(connection, OverflowPolicy.getDefaultCapacity(), OverflowPolicy
+				.getDefault());
+	}
+
+	/**
+	 * Creates and returns an instance of the QueuedConnection class, and
+	 * starts its writer thread.
+	 * 
+	 * @param connection
+	 *            the connection to which the messages are written
+	 * @param capacity
+	 *            the maximum number of messages waiting to be written
+	 * @param policy
+	 *            what to do with a message when the queue is full
+	 */
+	public QueuedConnection(SocketConnection connection, int capacity,
+			OverflowPolicy policy) {
+		this.connection = connection;
+		this.queue = new ArrayBlockingQueue<SharedMessage>(capacity);
+		this.policy = policy;
+		writer = HandlerThreads.newThread(this);
+		if (!writer.isDaemon()) {
+			writer.setDaemon(true);
+		}
+		writer.start();
+	}
+
+	/**
+	 * Returns the connection to which the messages are written.
+	 * 
+	 * @return the connection to which the messages are written
+	 */
+	public SocketConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Returns the number of messages waiting to be written.
+	 * 
+	 * @return the number of messages waiting to be written
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * Queues the specified message to be sent to the client, without waiting.
+	 * The message is encoded or copied at once, as its data may be changed by
+	 * the server before the writer thread sends it.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the connection is closed, if the message cannot be
+	 *             encoded, or if the queue is full and the client is to be
+	 *             disconnected
+	 */
+	public void sendMessage(CardGameMessage message) throws IOException {
+		sendMessage(new SharedMessage(message));
+	}
+
+	/**
+	 * Queues a message which is broadcast to many connections, without
+	 * waiting. The message is encoded for the protocol of this connection at
+	 * once, or copied for an object stream, unless another connection has
+	 * already done so.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the connection is closed, if the message cannot be
+	 *             encoded, or if the queue is full and the client is to be
+	 *             disconnected
+	 */
+	public void sendMessage(SharedMessage message) throws IOException {
+		if (closed) {
+			throw new IOException("Connection closed");
+		}
+		MessageCodec codec = connection.getCodec();
+		if (codec != null) {
+			message.getFrame(codec);
+		} else {
+			message.getSnapshot();
+		}
+		if (!queue.offer(message)) {
+			policy.overflow(message.getMessage(), this);
+		}
+	}
+
+	// implementation of method from the Runnable interface, which writes the
+	// queued messages until the connection is closed
+	public void run() {
+		try {
+			while (!closed) {
+				connection.sendMessage(queue.take());
+			}
+		} catch (InterruptedException ex) {
+			// the connection is closed
+		} catch (IOException ex) {
+			// the reading thread of the server sees the closed socket and
+			// removes the connection
+			close();
+		}
+	}
+
+	/**
+	 * Returns the address of the remote end of this connection.
+	 * 
+	 * @return the address of the remote end of this connection
+	 */
+	public SocketAddress getRemoteSocketAddress() {
+		return connection.getRemoteSocketAddress();
+	}
+
+	/**
+	 * Returns whether the messages go over a plain object stream.
+	 * 
+	 * @return true if the connection to which the messages are written has
+	 *         no codec
+	 */
+	public boolean isObjectStream() {
+		return connection.isObjectStream();
+	}
+
+	/**
+	 * Closes this connection and stops its writer thread. Messages still in
+	 * the queue are discarded.
+	 */
+	public void close() {
+		closed = true;
+		writer.interrupt();
+		connection.close();
+	}
+}
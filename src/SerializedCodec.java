@@ -0,0 +1,68 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * This class is used to encode each card game message on its own with Java
+ * serialization. Unlike a long-lived ObjectOutputStream, no state is kept
+ * between messages.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class SerializedCodec implements MessageCodec {
+	/**
+	 * The magic number of this codec ("B2S1").
+	 */
+	public static final int MAGIC = 0x42325331;
+
+	/**
+	 * Returns the magic number which identifies this codec.
+	 * 
+	 * @return the magic number which identifies this codec
+	 */
+	public int getMagic() {
+		return MAGIC;
+	}
+
+	/**
+	 * Encodes the specified message with a new ObjectOutputStream.
+	 * 
+	 * @param message
+	 *            the message to be encoded
+	 * @return the bytes of the encoded message
+	 * @throws IOException
+	 *             if the message cannot be serialized
+	 */
+	public byte[] encode(CardGameMessage message) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		ObjectOutputStream oostream = new ObjectOutputStream(bytes);
+		oostream.writeObject(message);
+		oostream.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a message with a new ObjectInputStream.
+	 * 
+	 * @param data
+	 *            the array holding the encoded message
+	 * @param offset
+	 *            the index of the first byte of the encoded message
+	 * @param length
+	 *            the length of the encoded message
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the bytes are not a serialized CardGameMessage
+	 */
+	public CardGameMessage decode(byte[] data, int offset, int length) throws IOException {
+		ObjectInputStream oistream = new ObjectInputStream(new ByteArrayInputStream(data, offset, length));
+		try {
+			return (CardGameMessage) oistream.readObject();
+		} catch (ClassNotFoundException | ClassCastException ex) {
+			throw new IOException("Not a card game message", ex);
+		}
+	}
+}
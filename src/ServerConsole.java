@@ -0,0 +1,154 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+
+import javax.swing.JFrame;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+
+/**
+ * This class is used to show the log of a card game server in a window. The
+ * console tails the ring buffer of the log from the event dispatch thread, so
+ * the threads serving the clients never touch Swing, and it keeps no more
+ * lines than the log does.
+ *
+ * @author Zhou Jingran
+ *
+ */
+public class ServerConsole {
+	// the delay between two updates of the text area, in milliseconds
+	private static final int REFRESH_DELAY = 250;
+
+	// the log shown in this console
+	private final ServerLog log;
+	// the maximum number of lines shown
+	private final int maxNumOfLines;
+	// the number of the next line of the log to be shown
+	private long nextLine = 0;
+	// the main frame of the server
+	private JFrame frame = null;
+	// text area for displaying server states
+	private JTextArea textArea = null;
+
+	/**
+	 * Creates and returns an instance of the ServerConsole class, and shows it
+	 * on the event dispatch thread.
+	 *
+	 * @param serverName
+	 *            the name of the card game server
+	 * @param log
+	 *            the log of the server
+	 */
+	public ServerConsole(final String serverName, ServerLog log) {
+		this.log = log;
+		this.maxNumOfLines = Integer.getInteger(ServerLog.LINES, 1000);
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				buildGUI(serverName);
+				new Timer(REFRESH_DELAY, new RefreshListener()).start();
+			}
+		});
+	}
+
+	/**
+	 * Builds the GUI for the server
+	 *
+	 * @param serverName
+	 *            the name of the card game server
+	 */
+	private void buildGUI(String serverName) {
+		// build a GUI
+		frame = new JFrame(serverName);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		textArea = new JTextArea(20, 40);
+		textArea.setEditable(false);
+		textArea.setLineWrap(true);
+		textArea.setWrapStyleWord(true);
+		JScrollPane scroller = new JScrollPane(textArea);
+		scroller.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
+		scroller.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+		frame.add(scroller);
+
+		// build the menu bar
+		JMenuItem clearMenuItem = new JMenuItem("Clear console");
+		clearMenuItem.addActionListener(new ClearMenuItemListener());
+		JMenuItem quitMenuItem = new JMenuItem("Quit");
+		quitMenuItem.addActionListener(new QuitMenuItemListener());
+		JMenu menu = new JMenu("Option");
+		menu.add(clearMenuItem);
+		menu.add(quitMenuItem);
+		JMenuBar menuBar = new JMenuBar();
+		menuBar.add(menu);
+		frame.setJMenuBar(menuBar);
+
+		frame.pack();
+		frame.setVisible(true);
+	} // buildGUI
+
+	/**
+	 * This inner class is used for appending the new lines of the log to the
+	 * text area, and dropping the oldest lines beyond the limit.
+	 */
+	private class RefreshListener implements ActionListener {
+		// the lines copied from the log
+		private final ArrayList<String> lines = new ArrayList<String>();
+
+		public void actionPerformed(ActionEvent e) {
+			nextLine = log.copyLines(nextLine, lines);
+			if (lines.isEmpty()) {
+				return;
+			}
+			StringBuilder sb = new StringBuilder();
+			for (String line : lines) {
+				sb.append(line).append('\n');
+			}
+			lines.clear();
+			textArea.append(sb.toString());
+
+			Element root = textArea.getDocument().getDefaultRootElement();
+			int excess = root.getElementCount() - 1 - maxNumOfLines;
+			if (excess > 0) {
+				try {
+					textArea.getDocument().remove(0,
+							root.getElement(excess - 1).getEndOffset());
+				} catch (BadLocationException ex) {
+					textArea.setText("");
+				}
+			}
+			textArea.setCaretPosition(textArea.getDocument().getLength());
+		}
+	} // RefreshListener
+
+	/**
+	 * This inner class is used for handling the Clear menu
+	 *
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class ClearMenuItemListener implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			textArea.setText("");
+		}
+	} // ClearMenuItemListener
+
+	/**
+	 * This inner class is used for handling the Quit menu
+	 *
+	 * @author Kenneth Wong
+	 *
+	 */
+	private class QuitMenuItemListener implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			frame.dispose();
+			System.exit(0);
+		}
+	} // QuitMenuItemListener
+}
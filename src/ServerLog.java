@@ -0,0 +1,289 @@
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to log the activity of a card game server without
+ * slowing down the threads serving the clients. Records are put in a bounded
+ * queue and dropped if it is full; a single logging thread formats them as
+ * "ts=... table=... msg=..." lines, writes them to a stream (if any) and keeps
+ * the latest lines in a ring buffer, from which a viewer such as the server
+ * console can tail them.
+ * <p>
+ * The queue capacity and ring size are set by the system properties
+ * "bigtwo.logCapacity" (8192 records by default) and "bigtwo.logLines" (1000
+ * lines by default). Debug records, logged for every message, are kept only if
+ * the system property "bigtwo.debug" is "true", or by default when the server
+ * has a GUI.
+ *
+ * @author Zhou Jingran
+ *
+ */
+public class ServerLog implements Runnable {
+	/**
+	 * The system property setting the capacity of the queue of records.
+	 */
+	public static final String CAPACITY = "bigtwo.logCapacity";
+	/**
+	 * The system property setting the number of lines kept for viewers.
+	 */
+	public static final String LINES = "bigtwo.logLines";
+	/**
+	 * The system property enabling debug records.
+	 */
+	public static final String DEBUG = "bigtwo.debug";
+
+	// the maximum number of records written at once
+	private static final int BATCH_SIZE = 256;
+
+	// the stream to which the lines are written, or null
+	private final PrintStream out;
+	// a boolean indicating if debug records are kept
+	private final boolean debug;
+	// the records waiting to be written
+	private final ArrayBlockingQueue<Record> queue;
+	// the latest lines, where line n is at index n % lines.length
+	private final String[] lines;
+	// the number of lines written so far
+	private long numOfLines = 0;
+	// the number of records dropped because the queue was full
+	private final AtomicLong dropped = new AtomicLong();
+	// the number of dropped records already reported
+	private long reported = 0;
+
+	/**
+	 * Creates and returns an instance of the ServerLog class configured by the
+	 * system properties, and starts its logging thread.
+	 *
+	 * @param out
+	 *            the stream to which the lines are written, or null to only
+	 *            keep them for viewers
+	 * @param debugByDefault
+	 *            true if debug records are kept when the system property is
+	 *            not set
+	 */
+	public ServerLog(PrintStream out, boolean debugByDefault) {
+		this(out, Integer.getInteger(CAPACITY, 8192), Integer.getInteger(LINES,
+				1000), System.getProperty(DEBUG) == null ? debugByDefault
+				: Boolean.getBoolean(DEBUG));
+	}
+
+	/**
+	 * Creates and returns an instance of the ServerLog class, and starts its
+	 * logging thread.
+	 *
+	 * @param out
+	 *            the stream to which the lines are written, or null to only
+	 *            keep them for viewers
+	 * @param capacity
+	 *            the maximum number of records waiting to be written
+	 * @param numOfLines
+	 *            the number of lines kept for viewers
+	 * @param debug
+	 *            true if debug records are kept
+	 */
+	public ServerLog(PrintStream out, int capacity, int numOfLines,
+			boolean debug) {
+		this.out = out;
+		this.debug = debug;
+		this.queue = new ArrayBlockingQueue<Record>(capacity);
+		this.lines = new String[numOfLines];
+		Thread t = new Thread(this, "ServerLog");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Checks if debug records are kept, so that callers can skip building
+	 * them.
+	 *
+	 * @return true if debug records are kept
+	 */
+	public boolean isDebugEnabled() {
+		return debug;
+	}
+
+	/**
+	 * Logs a message about the server.
+	 *
+	 * @param msg
+	 *            the message
+	 */
+	public void info(String msg) {
+		add(new Record(-1, msg));
+	}
+
+	/**
+	 * Logs a message about a table.
+	 *
+	 * @param tableID
+	 *            the index of the table
+	 * @param msg
+	 *            the message
+	 */
+	public void info(int tableID, String msg) {
+		add(new Record(tableID, msg));
+	}
+
+	/**
+	 * Logs a message about the server, which is dropped unless debug records
+	 * are kept.
+	 *
+	 * @param msg
+	 *            the message
+	 */
+	public void debug(String msg) {
+		if (debug) {
+			add(new Record(-1, msg));
+		}
+	}
+
+	/**
+	 * Logs a message about a table, which is dropped unless debug records are
+	 * kept.
+	 *
+	 * @param tableID
+	 *            the index of the table
+	 * @param msg
+	 *            the message
+	 */
+	public void debug(int tableID, String msg) {
+		if (debug) {
+			add(new Record(tableID, msg));
+		}
+	}
+
+	/**
+	 * Returns the number of records dropped because the queue was full.
+	 *
+	 * @return the number of records dropped
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Copies the lines written since the specified line which are still in the
+	 * ring buffer.
+	 *
+	 * @param from
+	 *            the number of the first line wanted, i.e. the value returned
+	 *            by the previous call, or 0
+	 * @param into
+	 *            the list to which the lines are added
+	 * @return the number of the next line to be written
+	 */
+	public synchronized long copyLines(long from, List<String> into) {
+		for (long n = Math.max(from, numOfLines - lines.length); n < numOfLines; n++) {
+			into.add(lines[(int) (n % lines.length)]);
+		}
+		return numOfLines;
+	}
+
+	/**
+	 * Adds a record to the queue, or drops it if the queue is full.
+	 *
+	 * @param record
+	 *            the record
+	 */
+	private void add(Record record) {
+		if (!queue.offer(record)) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	// implementation of method from the Runnable interface, which writes the
+	// records in batches
+	public void run() {
+		ArrayList<Record> batch = new ArrayList<Record>(BATCH_SIZE);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException ex) {
+				return;
+			}
+			queue.drainTo(batch, BATCH_SIZE - 1);
+			long numOfDropped = dropped.get();
+			if (numOfDropped > reported) {
+				batch.add(new Record(-1, (numOfDropped - reported)
+						+ " log records dropped"));
+				reported = numOfDropped;
+			}
+			for (Record record : batch) {
+				write(record.format());
+			}
+			if (out != null) {
+				out.flush();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes a line to the stream and the ring buffer.
+	 *
+	 * @param line
+	 *            the line
+	 */
+	private void write(String line) {
+		if (out != null) {
+			out.println(line);
+		}
+		synchronized (this) {
+			lines[(int) (numOfLines % lines.length)] = line;
+			numOfLines++;
+		}
+	}
+
+	/**
+	 * This inner class is used to hold a record until it is written, so that
+	 * the callers do not pay for formatting it.
+	 */
+	private static class Record {
+		private final long time; // the time of the record
+		private final int tableID; // the index of the table, or -1
+		private final String msg; // the message
+
+		/**
+		 * Creates and returns an instance of the Record class.
+		 *
+		 * @param tableID
+		 *            the index of the table, or -1
+		 * @param msg
+		 *            the message
+		 */
+		public Record(int tableID, String msg) {
+			this.time = System.currentTimeMillis();
+			this.tableID = tableID;
+			this.msg = msg;
+		}
+
+		/**
+		 * Formats this record as a line of key=value fields.
+		 *
+		 * @return the line
+		 */
+		public String format() {
+			StringBuilder sb = new StringBuilder(msg.length() + 48);
+			sb.append("ts=").append(
+					DateTimeFormatter.ISO_INSTANT.format(Instant
+							.ofEpochMilli(time)));
+			if (tableID >= 0) {
+				sb.append(" table=").append(tableID);
+			}
+			sb.append(" msg=\"");
+			for (int i = 0; i < msg.length(); i++) {
+				char c = msg.charAt(i);
+				if (c == '"' || c == '\\') {
+					sb.append('\\');
+				}
+				sb.append(c == '\n' ? ' ' : c);
+			}
+			return sb.append('"').toString();
+		}
+	} // Record
+}
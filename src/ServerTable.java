@@ -0,0 +1,514 @@
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to model a table of a card game server, at which a
+ * single game is played. Each table keeps its own players and ready states
+ * and has its own lock, so the tables of a server never wait for each other.
+ * Overrides startGame() and checkMove() to keep track of the game played at
+ * the table.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class ServerTable {
+	// the server hosting this table
+	private final CardGameServer server;
+	// the index of this table in the server
+	private final int tableID;
+	// the maximum number of players at this table
+	private final int maxNumOfPlayers;
+	// array for holding connections to the clients
+	private final ClientConnection[] clients;
+	// array for holding player names of the clients
+	private final String[] clientNames;
+	// array for holding ready states of the clients
+	private final boolean[] clientReadyStates;
+	// number of current players
+	private int numOfPlayers = 0;
+	// the lock of this table, held while a message from a player is handled
+	private final ReentrantLock lock = new ReentrantLock();
+	// the clients to which a message could not be sent, to be disconnected
+	private final ArrayList<ClientConnection> laggards = new ArrayList<ClientConnection>();
+
+	/**
+	 * Creates and returns an instance of the ServerTable class.
+	 * 
+	 * @param server
+	 *            the server hosting this table
+	 * @param tableID
+	 *            the index of this table in the server
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players at this table
+	 */
+	public ServerTable(CardGameServer server, int tableID, int maxNumOfPlayers) {
+		this.server = server;
+		this.tableID = tableID;
+		this.maxNumOfPlayers = maxNumOfPlayers;
+		clients = new ClientConnection[maxNumOfPlayers];
+		clientNames = new String[maxNumOfPlayers];
+		clientReadyStates = new boolean[maxNumOfPlayers];
+	}
+
+	/**
+	 * Returns the index of this table in the server.
+	 * 
+	 * @return the index of this table in the server
+	 */
+	public int getTableID() {
+		return tableID;
+	}
+
+	/**
+	 * Returns the number of players at this table.
+	 * 
+	 * @return the number of players at this table
+	 */
+	public int getNumOfPlayers() {
+		lock.lock();
+		try {
+			return numOfPlayers;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if this table has a free seat.
+	 * 
+	 * @return true if another player may sit at this table
+	 */
+	public boolean hasFreeSeat() {
+		lock.lock();
+		try {
+			return numOfPlayers < maxNumOfPlayers;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Seats a client at the first free seat of this table, and sends the
+	 * player list to the client.
+	 * 
+	 * @param client
+	 *            the connection to the client
+	 * @return the playerID of the client, or -1 if the table is full
+	 */
+	public int addConnection(ClientConnection client) {
+		lock.lock();
+		try {
+			// locates the first empty slot for the new connection
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				if (clients[i] == null) {
+					clients[i] = client;
+					clientNames[i] = null;
+					clientReadyStates[i] = false;
+					numOfPlayers++;
+					println("Seats the client at " + client.getRemoteSocketAddress()
+							+ " as player " + i);
+
+					try {
+						// sends the player list to the new player
+						client.sendMessage(new CardGameMessage(
+								CardGameMessage.PLAYER_LIST, i, clientNames.clone()));
+					} catch (Exception ex) {
+						println("Error in establishing a connection with a client at "
+								+ client.getRemoteSocketAddress());
+						ex.printStackTrace();
+						laggards.add(client);
+					}
+					return i;
+				}
+			} // for
+			return -1;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a client from this table (possibly due to connection loss).
+	 * 
+	 * @param client
+	 *            the connection being removed from this table
+	 */
+	public void removeConnection(ClientConnection client) {
+		lock.lock();
+		try {
+			int i = indexOf(client);
+			if (i < 0) {
+				return;
+			}
+			String name = clientNames[i];
+
+			clients[i] = null;
+			clientNames[i] = null;
+			clientReadyStates[i] = false;
+			numOfPlayers--;
+			// the game cannot go on without the player
+			endGame();
+
+			println(name + " (" + client.getRemoteSocketAddress()
+					+ ") leaves the game.");
+
+			String remoteAddress = client.getRemoteSocketAddress().toString();
+
+			// broadcasts a message about the leaving of this player
+			broadcastMessage(new CardGameMessage(CardGameMessage.QUIT, i,
+					remoteAddress));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the clients seated at this table.
+	 * 
+	 * @return the connections to the clients seated at this table
+	 */
+	public ArrayList<ClientConnection> getConnections() {
+		lock.lock();
+		try {
+			ArrayList<ClientConnection> list = new ArrayList<ClientConnection>();
+			for (ClientConnection client : clients) {
+				if (client != null) {
+					list.add(client);
+				}
+			}
+			return list;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if this table has a free seat while every player seated at it,
+	 * at least one of whom is not a bot, is ready for a new game.
+	 * 
+	 * @return true if bots may take the free seats
+	 */
+	public boolean isWaitingForPlayers() {
+		lock.lock();
+		try {
+			if (numOfPlayers == maxNumOfPlayers) {
+				return false;
+			}
+			boolean hasHuman = false;
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				if (clients[i] != null) {
+					if (!clientReadyStates[i]) {
+						return false;
+					}
+					hasHuman |= !server.isBot(clients[i]);
+				}
+			}
+			return hasHuman;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns and forgets the clients to which a message could not be sent,
+	 * e.g. because they do not read their messages. The server disconnects
+	 * them once it no longer holds the lock of this table.
+	 * 
+	 * @return the clients to be disconnected
+	 */
+	public ArrayList<ClientConnection> takeLaggards() {
+		lock.lock();
+		try {
+			ArrayList<ClientConnection> list = new ArrayList<ClientConnection>(
+					laggards);
+			laggards.clear();
+			return list;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Parses a message received from a client seated at this table.
+	 * 
+	 * @param client
+	 *            the connection to the client
+	 * @param message
+	 *            the message received from the client
+	 */
+	public void parseMessage(ClientConnection client,
+			CardGameMessage message) {
+		lock.lock();
+		try {
+			// updates the playerID
+			int i = indexOf(client);
+			if (i < 0) {
+				return;
+			}
+			message.setPlayerID(i);
+
+			// parses the message based on it type
+			switch (message.getType()) {
+			case CardGameMessage.JOIN:
+				// adds a player to the game
+				addPlayer(i, (String) message.getData());
+				break;
+			case CardGameMessage.READY:
+				// marks the specified player as ready for a new game
+				setReadyState(i);
+				break;
+			case CardGameMessage.MOVE:
+				// checks the move before broadcasting it
+				CardGameMessage move = checkMove(message);
+				if (move != null) {
+					debug("Broadcasts a \"MOVE\" message from ", client);
+					// broadcast the MOVE message to all clients, and the card
+					// indices to clients which predate codecs
+					broadcastMessage(move, message);
+				} else {
+					println("Rejects an illegal move from "
+							+ client.getRemoteSocketAddress());
+					// tells the player that the move is rejected; a client
+					// which predates codecs gets its move back, which it
+					// finds illegal itself
+					sendMessage(i, client.isObjectStream() ? message
+							: new CardGameMessage(CardGameMessage.MOVE, i, null));
+				}
+				break;
+			case CardGameMessage.MSG:
+				debug("Broadcasts a user message from ", client);
+				// broadcast the user message to all clients
+				String longMsg = clientNames[i] + " ("
+						+ client.getRemoteSocketAddress() + "): "
+						+ message.getData();
+				broadcastMessage(new CardGameMessage(CardGameMessage.MSG, i,
+						longMsg));
+				break;
+			default:
+				println("Wrong message type: " + message.getType());
+				// invalid message
+				break;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Starts a new game at this table with the specified deck, which is then
+	 * broadcast to the players. Overrides this method if the server keeps
+	 * track of the game.
+	 * 
+	 * @param deck
+	 *            the shuffled deck for the new game
+	 */
+	protected void startGame(Deck deck) {
+	}
+
+	/**
+	 * Ends the game at this table without a winner, when a player leaves in
+	 * the middle of it. Overrides this method if the server keeps track of
+	 * the game.
+	 */
+	protected void endGame() {
+	}
+
+	/**
+	 * Checks a MOVE message received from a player. Overrides this method if
+	 * the server validates the moves; by default every move is broadcast as it
+	 * is.
+	 * 
+	 * @param message
+	 *            the MOVE message, with playerID set to the player who makes
+	 *            the move
+	 * @return the message to be broadcast to the players, or null if the move
+	 *         is rejected
+	 */
+	protected CardGameMessage checkMove(CardGameMessage message) {
+		return message;
+	}
+
+	/**
+	 * Returns the seat of the specified client at this table.
+	 * 
+	 * @param client
+	 *            the connection to the client
+	 * @return the playerID of the client, or -1 if it is not at this table
+	 */
+	private int indexOf(ClientConnection client) {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clients[i] == client) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Updates the name of a player and tells the other players.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player who is joining the game
+	 * @param name
+	 *            the name of the player who is joining the game
+	 */
+	private void addPlayer(int playerID, String name) {
+		clientNames[playerID] = name;
+
+		println(name + " (" + clients[playerID].getRemoteSocketAddress()
+				+ ") joins the game.");
+
+		// broadcasts a message about this player joining the game
+		broadcastMessage(new CardGameMessage(CardGameMessage.JOIN, playerID,
+				name));
+	}
+
+	/**
+	 * Marks the specified player as ready for a new game, and starts a new
+	 * game if all seats are taken by ready players.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player who becomes ready for a new game
+	 */
+	private void setReadyState(int playerID) {
+		clientReadyStates[playerID] = true;
+		println(clientNames[playerID] + " ("
+				+ clients[playerID].getRemoteSocketAddress()
+				+ " ) is ready for the next game.");
+		broadcastMessage(new CardGameMessage(CardGameMessage.READY, playerID,
+				null));
+
+		// lets bots take the free seats if the players wait too long
+		if (numOfPlayers < maxNumOfPlayers) {
+			server.requestBots(this);
+		}
+
+		// checks if all players are ready
+		if (numOfPlayers == maxNumOfPlayers) {
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				if (clientReadyStates[i] == false) {
+					// returns if any of the players is not ready
+					return;
+				}
+			}
+
+			// resets the ready states of all the players for the next game
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				clientReadyStates[i] = false;
+			}
+
+			// creates a new deck, shuffles the deck, and starts a new game,
+			// logging the deal so that the game can be replayed
+			Deck deck = server.createDeck();
+			server.shuffleDeck(deck);
+			println("All players are ready. Game starts with deck " + deck + ".");
+			startGame(deck);
+			broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
+					deck));
+		}
+	}
+
+	/**
+	 * Broadcasts the specified message to all players at this table. The
+	 * message is encoded once for each protocol in use, and the bytes are
+	 * shared by the players.
+	 * 
+	 * @param message
+	 *            the specified message to be broadcast to all players
+	 */
+	private void broadcastMessage(CardGameMessage message) {
+		broadcastMessage(message, message);
+	}
+
+	/**
+	 * Broadcasts a message to all players at this table, with another form
+	 * of the message for the players whose messages go over a plain object
+	 * stream, e.g. a MOVE message holding the card indices rather than the
+	 * mask of the cards, which clients predating codecs cannot read.
+	 * 
+	 * @param message
+	 *            the message to be broadcast to the players
+	 * @param legacyMessage
+	 *            the message to be broadcast to the players whose messages go
+	 *            over a plain object stream
+	 */
+	private void broadcastMessage(CardGameMessage message,
+			CardGameMessage legacyMessage) {
+		SharedMessage shared = new SharedMessage(message);
+		SharedMessage legacy = legacyMessage == message ? shared
+				: new SharedMessage(legacyMessage);
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clients[i] != null) {
+				try {
+					clients[i].sendMessage(clients[i].isObjectStream() ? legacy
+							: shared);
+				} catch (Exception ex) {
+					failed(i, ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the specified message to a single player at this table.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player
+	 * @param message
+	 *            the specified message to be sent to the player
+	 */
+	private void sendMessage(int playerID, CardGameMessage message) {
+		if (clients[playerID] != null) {
+			try {
+				clients[playerID].sendMessage(message);
+			} catch (Exception ex) {
+				failed(playerID, ex);
+			}
+		}
+	}
+
+	/**
+	 * Records a player to whom a message could not be sent, so that the
+	 * player is disconnected.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player
+	 * @param ex
+	 *            the reason of the failure
+	 */
+	private void failed(int playerID, Exception ex) {
+		println("Error in sending a message to the client at "
+				+ clients[playerID].getRemoteSocketAddress() + ": "
+				+ ex.getMessage());
+		if (!laggards.contains(clients[playerID])) {
+			laggards.add(clients[playerID]);
+		}
+	}
+
+	/**
+	 * Logs the specified message, tagged with the index of this table.
+	 * 
+	 * @param msg
+	 *            the message to be logged
+	 */
+	private void println(String msg) {
+		server.getLog().info(tableID, msg);
+	}
+
+	/**
+	 * Logs a message about a client, which is logged for every message and is
+	 * therefore only built if debug records are kept.
+	 * 
+	 * @param msg
+	 *            the message to be logged, followed by the address of the
+	 *            client
+	 * @param client
+	 *            the connection to the client
+	 */
+	private void debug(String msg, ClientConnection client) {
+		ServerLog log = server.getLog();
+		if (log.isDebugEnabled()) {
+			log.debug(tableID, msg + client.getRemoteSocketAddress());
+		}
+	}
+}
@@ -0,0 +1,138 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * This class is used by a server to broadcast a card game message to many
+ * clients while encoding it only once for each protocol in use. The encoded
+ * bytes are computed by the first connection which needs them and then shared
+ * by all the others, which write the same array (or read-only views of it).
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public final class SharedMessage {
+	// the message being broadcast
+	private final CardGameMessage message;
+	// the frames encoded so far, keyed by the magic number of the codec, or
+	// by OBJECT_STREAM_MAGIC for the bytes of a serialized object
+	private final HashMap<Integer, byte[]> encodings = new HashMap<Integer, byte[]>(4);
+	// a copy of the message read back from its serialized bytes, or null if
+	// no object stream has needed it yet
+	private CardGameMessage snapshot = null;
+
+	/**
+	 * Creates and returns an instance of the SharedMessage class.
+	 * 
+	 * @param message
+	 *            the message to be broadcast
+	 */
+	public SharedMessage(CardGameMessage message) {
+		this.message = message;
+	}
+
+	/**
+	 * Returns the message being broadcast.
+	 * 
+	 * @return the message being broadcast
+	 */
+	public CardGameMessage getMessage() {
+		return message;
+	}
+
+	/**
+	 * Returns the frame of the message for the specified codec, i.e. the
+	 * length of the encoded message followed by its bytes. The array is shared
+	 * and must not be modified.
+	 * 
+	 * @param codec
+	 *            the codec of the connection
+	 * @return the frame of the message
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public synchronized byte[] getFrame(MessageCodec codec) throws IOException {
+		byte[] frame = encodings.get(codec.getMagic());
+		if (frame == null) {
+			byte[] bytes = codec.encode(message);
+			frame = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length)
+					.put(bytes).array();
+			encodings.put(codec.getMagic(), frame);
+		}
+		return frame;
+	}
+
+	/**
+	 * Returns a read-only view of the frame of the message for the specified
+	 * codec, which can be written to a channel without copying the bytes.
+	 * 
+	 * @param codec
+	 *            the codec of the connection
+	 * @return a read-only buffer holding the frame of the message
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public ByteBuffer getFrameBuffer(MessageCodec codec) throws IOException {
+		return ByteBuffer.wrap(getFrame(codec)).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the message serialized on its own by a new ObjectOutputStream,
+	 * without the stream header, so that it can be written into any object
+	 * stream whose handle table has just been reset. The array is shared and
+	 * must not be modified.
+	 * 
+	 * @return the bytes of the serialized message
+	 * @throws IOException
+	 *             if the message cannot be serialized
+	 */
+	public synchronized byte[] getSerializedObject() throws IOException {
+		byte[] object = encodings.get(MessageCodec.OBJECT_STREAM_MAGIC);
+		if (object == null) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			ObjectOutputStream oostream = new ObjectOutputStream(bytes);
+			oostream.flush();
+			int headerLength = bytes.size();
+			oostream.writeObject(message);
+			oostream.close();
+			byte[] stream = bytes.toByteArray();
+			object = new byte[stream.length - headerLength];
+			System.arraycopy(stream, headerLength, object, 0, object.length);
+			encodings.put(MessageCodec.OBJECT_STREAM_MAGIC, object);
+		}
+		return object;
+	}
+
+	/**
+	 * Returns a copy of the message read back from its serialized bytes, which
+	 * later changes to the data of the message do not reach. It is written by
+	 * object streams which are not reset after every message, as the shared
+	 * bytes can only be written into a stream reset on both sides of them.
+	 * The copy is shared and must not be modified.
+	 * 
+	 * @return a copy of the message
+	 * @throws IOException
+	 *             if the message cannot be serialized or read back
+	 */
+	public synchronized CardGameMessage getSnapshot() throws IOException {
+		if (snapshot == null) {
+			byte[] object = getSerializedObject();
+			byte[] stream = ByteBuffer.allocate(4 + object.length)
+					.putShort(ObjectStreamConstants.STREAM_MAGIC)
+					.putShort(ObjectStreamConstants.STREAM_VERSION)
+					.put(object).array();
+			try (ObjectInputStream oistream = new ObjectInputStream(
+					new ByteArrayInputStream(stream))) {
+				snapshot = (CardGameMessage) oistream.readObject();
+			} catch (ClassNotFoundException ex) {
+				throw new IOException("Not a card game message", ex);
+			}
+		}
+		return snapshot;
+	}
+}
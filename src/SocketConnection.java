@@ -0,0 +1,430 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to exchange card game messages over a blocking socket,
+ * either with a plain ObjectOutputStream/ObjectInputStream pair or as frames
+ * encoded by a MessageCodec. It is used by both the clients and the server.
+ * 
+ * @author Zhou Jingran
+ *
+ */
+public class SocketConnection implements ClientConnection {
+	// the timeout for the server to acknowledge a codec, in milliseconds
+	private static final int HANDSHAKE_TIMEOUT = 5000;
+	/**
+	 * The system property setting the number of messages after which an
+	 * ObjectOutputStream is reset (256 by default).
+	 */
+	public static final String RESET_MESSAGES = "bigtwo.resetMessages";
+	/**
+	 * The system property setting the number of bytes after which an
+	 * ObjectOutputStream is reset (1 MB by default).
+	 */
+	public static final String RESET_BYTES = "bigtwo.resetBytes";
+	// the socket of this connection
+	private final Socket socket;
+	// the lock held while writing, which unlike a monitor does not pin a
+	// virtual thread to its carrier while it waits for the socket
+	private final ReentrantLock lock = new ReentrantLock();
+	// the codec of the frames, or null for object streams
+	private final MessageCodec codec;
+	// the streams used with a codec
+	private DataOutputStream dostream;
+	private DataInputStream distream;
+	// the streams used without a codec
+	private ObjectOutputStream oostream;
+	private ObjectInputStream oistream;
+	// the stream counting the bytes written by the ObjectOutputStream
+	private CountingOutputStream costream;
+	// the number of messages and bytes after which the ObjectOutputStream is
+	// reset, so that it does not keep every message sent in its handle table
+	private int resetMessages = Integer.getInteger(RESET_MESSAGES, 256);
+	private long resetBytes = Long.getLong(RESET_BYTES, 1 << 20);
+	// the number of messages written since the last reset
+	private int messagesSinceReset = 0;
+	// the number of bytes written when the stream was last reset
+	private long bytesAtReset = 0;
+	// the number of times the stream has been reset
+	private long numOfResets = 0;
+
+	/**
+	 * Creates and returns an instance of the SocketConnection class. Without a
+	 * codec, the ObjectOutputStream is created first so that its header is
+	 * sent before waiting for the header of the other end.
+	 * 
+	 * @param socket
+	 *            the socket of this connection
+	 * @param in
+	 *            the stream from which messages are read, which may hold bytes
+	 *            already read from the socket
+	 * @param codec
+	 *            the codec of the frames, or null for object streams
+	 * @throws IOException
+	 *             if the streams cannot be created
+	 */
+	public SocketConnection(Socket socket, InputStream in, MessageCodec codec)
+			throws IOException {
+		this.socket = socket;
+		this.codec = codec;
+		if (codec != null) {
+			dostream = new DataOutputStream(new BufferedOutputStream(
+					socket.getOutputStream()));
+			distream = new DataInputStream(in);
+		} else {
+			costream = new CountingOutputStream(socket.getOutputStream());
+			oostream = new ObjectOutputStream(costream);
+			oistream = new ObjectInputStream(in);
+		}
+	}
+
+	/**
+	 * Creates a connection for a socket accepted by the server. The first four
+	 * bytes sent by the client tell whether it uses a codec (which is then
+	 * acknowledged) or a plain ObjectOutputStream.
+	 * 
+	 * @param socket
+	 *            the socket accepted by the server
+	 * @return the connection to the client
+	 * @throws IOException
+	 *             if the client sends an unknown magic number
+	 */
+	public static SocketConnection accept(Socket socket) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(
+				socket.getInputStream());
+		in.mark(4);
+		int magic = new DataInputStream(in).readInt();
+		MessageCodec codec = MessageCodec.forMagic(magic);
+		if (codec != null) {
+			SocketConnection connection = new SocketConnection(socket, in,
+					codec);
+			connection.writeMagic(magic);
+			return connection;
+		} else if (magic == MessageCodec.OBJECT_STREAM_MAGIC) {
+			in.reset();
+			return new SocketConnection(socket, in, null);
+		}
+		throw new IOException("Unknown protocol " + Integer.toHexString(magic));
+	}
+
+	/**
+	 * Creates a connection for a client socket connected to the server. With a
+	 * codec, the magic number of the codec is sent and the server must
+	 * acknowledge it.
+	 * 
+	 * @param socket
+	 *            the socket connected to the server
+	 * @param codec
+	 *            the codec of the frames, or null for object streams
+	 * @return the connection to the server
+	 * @throws IOException
+	 *             if the server does not acknowledge the codec
+	 */
+	public static SocketConnection connect(Socket socket, MessageCodec codec)
+			throws IOException {
+		SocketConnection connection = new SocketConnection(socket,
+				new BufferedInputStream(socket.getInputStream()), codec);
+		if (codec != null) {
+			connection.writeMagic(codec.getMagic());
+			socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+			int ack = connection.distream.readInt();
+			socket.setSoTimeout(0);
+			if (ack != codec.getMagic()) {
+				throw new IOException("The server does not support the codec");
+			}
+		}
+		return connection;
+	}
+
+	/**
+	 * Connects to a server and negotiates the specified codec. If the server
+	 * does not acknowledge the codec, e.g. because it predates codecs, the
+	 * connection is made again with a plain ObjectOutputStream.
+	 * 
+	 * @param host
+	 *            the IP address of the server
+	 * @param port
+	 *            the TCP port of the server
+	 * @param codec
+	 *            the preferred codec, or null for object streams
+	 * @return the connection to the server
+	 * @throws IOException
+	 *             if the server cannot be reached
+	 */
+	public static SocketConnection open(String host, int port,
+			MessageCodec codec) throws IOException {
+		if (codec != null) {
+			Socket socket = new Socket(host, port);
+			try {
+				return connect(socket, codec);
+			} catch (IOException ex) {
+				socket.close();
+			}
+		}
+		return connect(new Socket(host, port), null);
+	}
+
+	/**
+	 * Writes a magic number to the other end.
+	 * 
+	 * @param magic
+	 *            the magic number
+	 * @throws IOException
+	 *             if the magic number cannot be sent
+	 */
+	private void writeMagic(int magic) throws IOException {
+		lock.lock();
+		try {
+			dostream.writeInt(magic);
+			dostream.flush();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the codec of this connection.
+	 * 
+	 * @return the codec of the frames, or null for object streams
+	 */
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Sends the specified message over this connection.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be sent
+	 */
+	public void sendMessage(CardGameMessage message)
+			throws IOException {
+		lock.lock();
+		try {
+			if (codec != null) {
+				byte[] frame = codec.encode(message);
+				dostream.writeInt(frame.length);
+				dostream.write(frame);
+				dostream.flush();
+			} else {
+				oostream.writeObject(message);
+				messagesSinceReset++;
+				if (messagesSinceReset >= resetMessages
+						|| costream.count - bytesAtReset >= resetBytes) {
+					// forgets the objects written so far, on both ends
+					oostream.reset();
+					messagesSinceReset = 0;
+					bytesAtReset = costream.count;
+					numOfResets++;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends a message which is broadcast to many connections. With a codec,
+	 * the shared frame is written as it is. Without a codec, the stream is
+	 * reset as its reset policy says. If the policy resets it after every
+	 * message, the shared bytes of the serialized message are written between
+	 * two resets, so that the handle tables of both ends stay in step;
+	 * otherwise the shared snapshot of the message is written as any other.
+	 * 
+	 * @param message
+	 *            the message to be sent
+	 * @throws IOException
+	 *             if the message cannot be sent
+	 */
+	public void sendMessage(SharedMessage message)
+			throws IOException {
+		lock.lock();
+		try {
+			if (codec != null) {
+				dostream.write(message.getFrame(codec));
+				dostream.flush();
+			} else if (resetMessages > 1) {
+				sendMessage(message.getSnapshot());
+			} else {
+				byte[] object = message.getSerializedObject();
+				if (messagesSinceReset > 0) {
+					oostream.reset();
+					numOfResets++;
+				}
+				oostream.flush();
+				costream.write(object, 0, object.length);
+				// forgets the objects of the shared bytes, on both ends
+				oostream.reset();
+				oostream.flush();
+				messagesSinceReset = 0;
+				bytesAtReset = costream.count;
+				numOfResets++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets when the ObjectOutputStream of this connection is reset. A reset
+	 * releases the messages held by the handle tables of both ends, at the
+	 * cost of sending the class descriptors again.
+	 * 
+	 * @param messages
+	 *            the number of messages after which the stream is reset
+	 * @param bytes
+	 *            the number of bytes after which the stream is reset
+	 */
+	public void setResetPolicy(int messages, long bytes) {
+		lock.lock();
+		try {
+			resetMessages = messages;
+			resetBytes = bytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of messages written since the ObjectOutputStream was
+	 * last reset, which are all still referenced by its handle table.
+	 * 
+	 * @return the number of messages retained by the ObjectOutputStream, or 0
+	 *         with a codec
+	 */
+	public int getRetainedMessages() {
+		lock.lock();
+		try {
+			return messagesSinceReset;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes written since the ObjectOutputStream was
+	 * last reset.
+	 * 
+	 * @return the number of bytes written since the last reset, or 0 with a
+	 *         codec
+	 */
+	public long getBytesSinceReset() {
+		lock.lock();
+		try {
+			return (costream == null) ? 0 : costream.count - bytesAtReset;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of times the ObjectOutputStream has been reset.
+	 * 
+	 * @return the number of resets, or 0 with a codec
+	 */
+	public long getNumOfResets() {
+		lock.lock();
+		try {
+			return numOfResets;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for and returns the next message received over this connection.
+	 * 
+	 * @return the next message received
+	 * @throws IOException
+	 *             if the connection is lost or the message is not valid
+	 */
+	public CardGameMessage readMessage() throws IOException {
+		if (codec != null) {
+			int length = distream.readInt();
+			if (length < 0 || length > MessageCodec.MAX_FRAME_LENGTH) {
+				throw new IOException("Invalid frame length " + length);
+			}
+			byte[] frame = new byte[length];
+			distream.readFully(frame);
+			return codec.decode(frame, 0, length);
+		}
+		try {
+			return (CardGameMessage) oistream.readObject();
+		} catch (ClassNotFoundException | ClassCastException ex) {
+			throw new IOException("Not a card game message", ex);
+		}
+	}
+
+	/**
+	 * Returns the address of the remote end of this connection.
+	 * 
+	 * @return the address of the remote end of this connection
+	 */
+	public SocketAddress getRemoteSocketAddress() {
+		return socket.getRemoteSocketAddress();
+	}
+
+	/**
+	 * Returns whether the messages go over a plain object stream.
+	 * 
+	 * @return true if this connection has no codec
+	 */
+	public boolean isObjectStream() {
+		return codec == null;
+	}
+
+	/**
+	 * Closes this connection.
+	 */
+	public void close() {
+		try {
+			socket.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * This inner class is used to count the bytes written to a stream.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		// the number of bytes written
+		private long count = 0;
+
+		/**
+		 * Creates and returns an instance of the CountingOutputStream class.
+		 * 
+		 * @param out
+		 *            the stream to which the bytes are written
+		 */
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		// overrides the method of FilterOutputStream to count the byte
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		// overrides the method of FilterOutputStream, which would write the
+		// bytes one at a time
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	} // CountingOutputStream
+}
@@ -14,14 +14,6 @@ public class StraightFlush extends Hand {
         super(player, cards);
     }
 
-    @Override
-    public boolean beats(Hand hand) {
-        if (hand.getType() == "Straight" || hand.getType() == "Flush" || hand.getType() == "FullHouse" || hand.getType() == "Quad") {
-            return true;
-        }
-        return super.beats(hand);
-    }
-
     /**
      * A method for checking if this is a valid hand of straight flush.
      * @return true if this is a valid hand of straight flush, false otherwise
@@ -0,0 +1,57 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The CardInferenceTest class is used to test what a CardInference infers from passes on a single.
+ * Player 0 holds the twelve lowest cards and the 2 of Spades, and player 1 leads the 2 of Hearts.
+ * @author Zhou Jingran
+ *
+ */
+public class CardInferenceTest {
+    private static final int HIGH_SINGLE = 45; // the card led by player 1
+    private static final long HAND = (1L << 12) - 1 | 1L << 51; // the cards of player 0
+
+    private CardInference inference; // the knowledge of player 0
+
+    /**
+     * A method for dealing the hand of player 0 and leading the single of player 1.
+     */
+    @BeforeEach
+    public void setUp() {
+        inference = new CardInference(0, HAND);
+        inference.apply(1, 1L << HIGH_SINGLE);
+    }
+
+    /**
+     * A method for testing that an opponent who passes on a single likely holds no higher card.
+     */
+    @Test
+    public void opponentPassNarrowsLikelyCards() {
+        inference.apply(2, MoveGenerator.PASS);
+        assertEquals(0L, inference.getLikely(2) & -(1L << HIGH_SINGLE));
+        assertTrue(Long.bitCount(inference.getLikely(2)) >= inference.getNumOfCards(2));
+        assertEquals(inference.getPossible(3), inference.getLikely(3));
+    }
+
+    /**
+     * A method for testing that the local player's own pass, which may be by choice, leaves what has
+     * been inferred about the opponents unchanged.
+     */
+    @Test
+    public void ownPassLeavesOpponentsUnchanged() {
+        inference.apply(2, MoveGenerator.PASS);
+        inference.apply(3, MoveGenerator.PASS);
+        long[] before = new long[BigTwoState.NUM_OF_PLAYERS];
+        for (int i = 1; i < before.length; i++) {
+            before[i] = inference.getLikely(i);
+        }
+        inference.apply(0, MoveGenerator.PASS);
+        assertEquals(HAND, inference.getLikely(0));
+        for (int i = 1; i < before.length; i++) {
+            assertEquals(before[i], inference.getLikely(i), "likely cards of player " + i);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The DeckShuffleTest class is used to test that the shuffles make every order equally likely. It counts
+ * the orders of a 4-card deck, which should all have the same frequency, and the position of each card in
+ * a 52-card deck, which should be uniform, and compares them with chi-squared tests. The random numbers
+ * are seeded, so each test always sees the same shuffles.
+ * @author Zhou Jingran
+ *
+ */
+public class DeckShuffleTest {
+    private static final int NUM_OF_DECKS = 200_000; // the number of decks shuffled by each test
+    private static final double MAX_Z = 4; // the z-score above which the counts are not uniform
+
+    /**
+     * A method for testing that Deck.shuffle with a SplittableRandom makes every order equally likely.
+     */
+    @Test
+    public void shuffleIsUniform() {
+        SplittableRandom random = new SplittableRandom(2396);
+        assertUniform(deck -> deck.shuffle(random));
+    }
+
+    /**
+     * A method for testing that Deck.shuffle with a seed makes every order equally likely over
+     * consecutive seeds, as for replayable deals.
+     */
+    @Test
+    public void seededShuffleIsUniform() {
+        long[] seed = {0};
+        assertUniform(deck -> deck.shuffle(seed[0]++));
+    }
+
+    /**
+     * A method for testing that Deck.shuffle with a SecureRandom, as for ranked deals, makes every order
+     * equally likely. The SecureRandom is seeded before its first use, which makes it deterministic.
+     * @throws NoSuchAlgorithmException if there is no SHA1PRNG algorithm
+     */
+    @Test
+    public void secureShuffleIsUniform() throws NoSuchAlgorithmException {
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(2396);
+        assertUniform(deck -> deck.shuffle(random));
+    }
+
+    /**
+     * A method for testing that Deck.shuffle(byte[], RandomGenerator) makes every order of 4 card indices
+     * equally likely.
+     */
+    @Test
+    public void indicesShuffleIsUniform() {
+        SplittableRandom random = new SplittableRandom(2396);
+        byte[] indices = new byte[4];
+        double z = orderZ(orders -> {
+            for (int i = 0; i < 4; i++) {
+                indices[i] = (byte) i;
+            }
+            Deck.shuffle(indices, random);
+            orders.accept(indices[0] << 4 | indices[1] << 2 | indices[2]);
+        });
+        assertTrue(z < MAX_Z, "z = " + z);
+    }
+
+    /**
+     * A method for testing that the chi-squared tests detect the bias of the shuffle which Deck.shuffle
+     * used to do, swapping each position with a random one.
+     */
+    @Test
+    public void legacyShuffleIsBiased() {
+        SplittableRandom random = new SplittableRandom(2396);
+        double z = orderZ(orders -> {
+            Deck deck = fourCards();
+            for (int i = 0; i < deck.size(); i++) {
+                int j = random.nextInt(deck.size());
+                if (i != j) {
+                    Card card = deck.setCard(i, deck.getCard(j));
+                    deck.setCard(j, card);
+                }
+            }
+            orders.accept(orderOf(deck));
+        });
+        assertTrue(z >= MAX_Z, "z = " + z);
+    }
+
+    /**
+     * A method for asserting that a shuffle makes every order of a 4-card deck equally likely, and puts
+     * each card of a 52-card deck at every position equally often.
+     * @param shuffle the shuffle of a deck
+     */
+    private static void assertUniform(Consumer<Deck> shuffle) {
+        double z = orderZ(orders -> {
+            Deck deck = fourCards();
+            shuffle.accept(deck);
+            orders.accept(orderOf(deck));
+        });
+        assertTrue(z < MAX_Z, "24 orders of 4 cards: z = " + z);
+
+        Deck deck = new BigTwoDeck();
+        long[] positions = new long[52 * 52];
+        for (int n = 0; n < NUM_OF_DECKS; n++) {
+            for (int i = 0; i < 52; i++) {
+                deck.setCard(i, BigTwoCard.of(i)); // restores the order for the next shuffle
+            }
+            shuffle.accept(deck);
+            for (int i = 0; i < 52; i++) {
+                positions[i * 52 + CardSet.indexOf(deck.getCard(i))]++;
+            }
+        }
+        z = chiSquaredZ(positions, (long) NUM_OF_DECKS * 52, 51 * 51);
+        assertTrue(z < MAX_Z, "52 cards x 52 positions: z = " + z);
+    }
+
+    /**
+     * A method for computing how far the counts of the 24 orders of 4 cards are from uniform.
+     * @param shuffle shuffles 4 cards and passes their order, as returned by orderOf(), to its argument
+     * @return the z-score of the chi-squared statistic of the counts
+     */
+    private static double orderZ(Consumer<LongConsumer> shuffle) {
+        long[] orders = new long[64]; // indexed by the cards at the first three positions
+        for (int n = 0; n < NUM_OF_DECKS; n++) {
+            shuffle.accept(order -> orders[(int) order]++);
+        }
+        long[] counts = new long[24];
+        int k = 0;
+        for (int order = 0; order < orders.length; order++) {
+            int a = order >> 4, b = order >> 2 & 3, c = order & 3;
+            if (a != b && b != c && a != c) {
+                counts[k++] = orders[order];
+            }
+        }
+        return chiSquaredZ(counts, NUM_OF_DECKS, 23);
+    }
+
+    /**
+     * A method for creating a deck of the 4 lowest cards, in order.
+     * @return the deck
+     */
+    private static Deck fourCards() {
+        Deck deck = new BigTwoDeck();
+        deck.removeAllCards();
+        for (int i = 0; i < 4; i++) {
+            deck.addCard(BigTwoCard.of(i));
+        }
+        return deck;
+    }
+
+    /**
+     * A method for computing the order of a deck of the 4 lowest cards from its first three cards.
+     * @param deck the deck
+     * @return the indices of the first three cards, two bits each
+     */
+    private static int orderOf(Deck deck) {
+        return CardSet.indexOf(deck.getCard(0)) << 4 | CardSet.indexOf(deck.getCard(1)) << 2
+                | CardSet.indexOf(deck.getCard(2));
+    }
+
+    /**
+     * A method for computing how far the chi-squared statistic of some counts is above its expected
+     * value, in standard deviations, using the normal approximation.
+     * @param counts the observed counts, which are all expected to be equal
+     * @param total the sum of the counts
+     * @param degreesOfFreedom the degrees of freedom of the statistic
+     * @return the z-score of the statistic
+     */
+    private static double chiSquaredZ(long[] counts, long total, int degreesOfFreedom) {
+        double expected = (double) total / counts.length;
+        double chiSquared = 0;
+        for (long count : counts) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+        return (chiSquared - degreesOfFreedom) / Math.sqrt(2.0 * degreesOfFreedom);
+    }
+}
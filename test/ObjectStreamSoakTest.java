@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ObjectStreamSoakTest class is used to check that a long-lived object stream connection, as a legacy
+ * client has, does not leak memory. It sends many messages over a local connection and checks that the
+ * heap stays flat. It is tagged "soak" and only run by "gradle soakTest", with the number of messages set
+ * by the system property "bigtwo.soakMessages" (1,000,000 by default).
+ * @author Zhou Jingran
+ *
+ */
+@Tag("soak")
+public class ObjectStreamSoakTest {
+    /**
+     * A method for testing that the heap used after the first tenth of the messages grows by less than
+     * 16 MB. Without resets, the handle tables of both streams would keep every message sent.
+     * @throws Exception if the connection fails
+     */
+    @Test
+    public void heapStaysFlat() throws Exception {
+        int numOfMessages = Integer.getInteger("bigtwo.soakMessages", 1_000_000);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Socket peer = server.accept();
+            // the receiver is created on its own thread, as each end waits for the stream header of the other
+            Thread receiver = new Thread(() -> {
+                try {
+                    SocketConnection connection = new SocketConnection(peer, peer.getInputStream(), null);
+                    for (int i = 0; i < numOfMessages; i++) {
+                        connection.readMessage();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            receiver.start();
+            SocketConnection sender = new SocketConnection(socket, socket.getInputStream(), null);
+
+            Runtime runtime = Runtime.getRuntime();
+            long baseline = 0;
+            long maxGrowth = 0;
+            for (int i = 1; i <= numOfMessages; i++) {
+                sender.sendMessage(new CardGameMessage(CardGameMessage.MSG, i & 3, "Message " + i));
+                if (i % (numOfMessages / 10) == 0) {
+                    System.gc();
+                    long used = runtime.totalMemory() - runtime.freeMemory();
+                    if (i == numOfMessages / 10) {
+                        baseline = used;
+                    }
+                    maxGrowth = Math.max(maxGrowth, used - baseline);
+                    System.out.printf("%9d messages: heap %6d KB, retained %d messages, %d resets%n", i,
+                            used >> 10, sender.getRetainedMessages(), sender.getNumOfResets());
+                }
+            }
+            receiver.join();
+            sender.close();
+            assertTrue(sender.getNumOfResets() > 0, "the stream is never reset");
+            assertTrue(maxGrowth < 16 << 20, "heap grew by " + (maxGrowth >> 10) + " KB");
+        }
+    }
+}